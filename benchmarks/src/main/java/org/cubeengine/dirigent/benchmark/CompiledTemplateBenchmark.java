@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.workload.Dirigents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares composing a compiled template with the {@link StringBuilderDirigent} to composing the same message with the
+ * {@link GeneratedMessages} class generated from {@code src/main/messages} at build time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledTemplateBenchmark
+{
+    @Param({"plain", "short", "complex", "escaped"})
+    public String kind;
+
+    private StringBuilderDirigent dirigent;
+    private GeneratedMessages generated;
+    private Context context;
+    private Template template;
+    private Object[] inputs;
+
+    @Setup
+    public void setUp()
+    {
+        dirigent = Dirigents.create();
+        generated = new GeneratedMessages(dirigent);
+        context = new ContextFactory().create(Locale.GERMANY);
+        template = dirigent.compile(Messages.get(kind));
+        inputs = new Object[]{"Alice", 1234.5d, "Bob", new Date(0)};
+        if (!composeGenerated().equals(composeTemplate()))
+        {
+            throw new IllegalStateException("The generated message differs: " + composeGenerated());
+        }
+    }
+
+    @Benchmark
+    public String composeTemplate()
+    {
+        return dirigent.compose(context, template, inputs);
+    }
+
+    @Benchmark
+    public String composeGenerated()
+    {
+        if ("plain".equals(kind))
+        {
+            return generated.plain(context, inputs);
+        }
+        if ("short".equals(kind))
+        {
+            return generated._short(context, inputs);
+        }
+        if ("complex".equals(kind))
+        {
+            return generated.complex(context, inputs);
+        }
+        return generated.escaped(context, inputs);
+    }
+}
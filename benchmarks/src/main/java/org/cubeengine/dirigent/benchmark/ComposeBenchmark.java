@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.workload.Dirigents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures composing messages end-to-end, from the source message or from a compiled template, with and without
+ * pooling of the intermediate components.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComposeBenchmark
+{
+    @Param({"short", "complex"})
+    public String kind;
+
+    @Param({"false", "true"})
+    public boolean pooling;
+
+    private StringBuilderDirigent dirigent;
+    private Context context;
+    private String source;
+    private Template template;
+    private Object[] inputs;
+
+    @Setup
+    public void setUp()
+    {
+        dirigent = Dirigents.create();
+        dirigent.setPooling(pooling);
+        context = new ContextFactory().create(Locale.GERMANY);
+        source = Messages.get(kind);
+        template = dirigent.compile(source);
+        inputs = new Object[]{"Alice", 1234.5d, "Bob", new Date(0)};
+    }
+
+    @Benchmark
+    public String composeSource()
+    {
+        return dirigent.compose(context, source, inputs);
+    }
+
+    @Benchmark
+    public String composeTemplate()
+    {
+        return dirigent.compose(context, template, inputs);
+    }
+}
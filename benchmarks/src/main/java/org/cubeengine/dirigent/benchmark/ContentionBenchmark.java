@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.cache.OutputCache;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
+import org.cubeengine.dirigent.formatter.PostProcessor;
+import org.cubeengine.dirigent.formatter.StringFormatter;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.component.Component;
+import org.cubeengine.dirigent.workload.Dirigents;
+import org.cubeengine.dirigent.workload.Message;
+import org.cubeengine.dirigent.workload.TemplateCorpus;
+import org.cubeengine.dirigent.workload.WorkloadGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Measures a single dirigent shared by many threads. The {@code compose} benchmark runs with the thread count given by
+ * {@code -t} (see {@link ContentionRunner} for a sweep over thread counts), the {@code churn} group composes while
+ * another thread keeps registering formatters and adding post processors to the shared dirigent. Both report the throughput and the latency
+ * distribution, so contention shows up as missing scaling and as a growing tail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentionBenchmark
+{
+    /**
+     * The number of pre-generated messages per thread, a power of two.
+     */
+    private static final int MESSAGES = 1024;
+    /**
+     * Every this many registrations the churn thread also adds a global post processor, a power of two. Every global
+     * post processor runs for each composed message, so they are added less often than formatters.
+     */
+    private static final int POST_PROCESSOR_INTERVAL = 64;
+    /**
+     * The post processor added by the churn thread, which returns the component unchanged.
+     */
+    private static final PostProcessor IDENTITY = new PostProcessor()
+    {
+        @Override
+        public Component process(Component component, Context context, Arguments arguments)
+        {
+            return component;
+        }
+    };
+
+    /**
+     * How the shared dirigent is configured: plain, with a shared {@link OutputCache} or with pooling.
+     */
+    @Param({"plain", "output-cache", "pooling"})
+    public String mode;
+
+    private StringBuilderDirigent dirigent;
+    private TemplateCorpus corpus;
+    private final AtomicInteger registrations = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        // a new instance per iteration, so the registrations of the churn group don't pile up
+        dirigent = Dirigents.create();
+        if ("output-cache".equals(mode))
+        {
+            dirigent.setOutputCache(new OutputCache<String>(4096));
+        }
+        dirigent.setPooling("pooling".equals(mode));
+        corpus = TemplateCorpus.load();
+    }
+
+    /**
+     * The messages composed by a single thread.
+     */
+    @State(Scope.Thread)
+    public static class Workload
+    {
+        private Message[] messages;
+        private Template[] templates;
+        private Context[] contexts;
+        private int next;
+        private StringBuilderDirigent compiledBy;
+
+        @Setup(Level.Iteration)
+        public void setUp(ContentionBenchmark shared, ThreadParams params)
+        {
+            if (messages == null)
+            {
+                List<Message> generated = new WorkloadGenerator(shared.corpus, params.getThreadIndex()).next(MESSAGES);
+                messages = generated.toArray(new Message[MESSAGES]);
+                contexts = new Context[MESSAGES];
+                ContextFactory contextFactory = new ContextFactory();
+                for (int i = 0; i < MESSAGES; ++i)
+                {
+                    contexts[i] = contextFactory.create(messages[i].getLocale());
+                }
+            }
+            if (compiledBy != shared.dirigent)
+            {
+                templates = new Template[MESSAGES];
+                for (int i = 0; i < MESSAGES; ++i)
+                {
+                    templates[i] = shared.dirigent.compile(messages[i].getTemplate());
+                }
+                compiledBy = shared.dirigent;
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String compose(Workload workload)
+    {
+        int i = workload.next++ & (MESSAGES - 1);
+        return dirigent.compose(workload.contexts[i], workload.templates[i], workload.messages[i].getInputs());
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(7)
+    public String churnCompose(Workload workload)
+    {
+        return compose(workload);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void churnRegister(Blackhole blackhole)
+    {
+        // registering is rare in practice, so throttle it to a few thousand registrations per second
+        Blackhole.consumeCPU(50000);
+        int n = registrations.incrementAndGet();
+        StringFormatter formatter = new StringFormatter("string", "churn" + n);
+        formatter.addPostProcessor(IDENTITY);
+        dirigent.registerFormatter(formatter);
+        if ((n & (POST_PROCESSOR_INTERVAL - 1)) == 0)
+        {
+            dirigent.addPostProcessor(IDENTITY);
+        }
+        blackhole.consume(formatter);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs {@link ContentionBenchmark#compose} for increasing thread counts and prints how the throughput scales compared
+ * to a single thread.
+ * <p>
+ * Usage: {@code java -cp benchmarks/target/benchmarks.jar org.cubeengine.dirigent.benchmark.ContentionRunner
+ * [max threads] [mode]}
+ */
+public final class ContentionRunner
+{
+    private ContentionRunner()
+    {
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        String mode = args.length > 1 ? args[1] : "plain";
+
+        List<Integer> threadCounts = new ArrayList<Integer>();
+        List<Double> scores = new ArrayList<Double>();
+        for (int threads = 1; threads <= maxThreads; threads *= 2)
+        {
+            Options options = new OptionsBuilder()
+                .include(ContentionBenchmark.class.getName() + ".compose$")
+                .mode(Mode.Throughput)
+                .param("mode", mode)
+                .threads(threads)
+                .build();
+            for (RunResult result : new Runner(options).run())
+            {
+                threadCounts.add(threads);
+                scores.add(result.getPrimaryResult().getScore());
+            }
+        }
+
+        System.out.printf("%nScaling of %s (mode %s)%n", ContentionBenchmark.class.getSimpleName(), mode);
+        System.out.printf("%8s %16s %10s %12s%n", "threads", "ops/us", "speedup", "efficiency");
+        for (int i = 0; i < scores.size(); ++i)
+        {
+            double speedup = scores.get(i) / scores.get(0);
+            System.out.printf("%8d %16.3f %10.2f %11.0f%%%n", threadCounts.get(i), scores.get(i), speedup,
+                              100 * speedup / threadCounts.get(i));
+        }
+    }
+}
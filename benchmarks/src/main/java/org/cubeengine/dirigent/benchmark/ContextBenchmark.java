@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
+import org.cubeengine.dirigent.context.Contexts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and deriving {@link org.cubeengine.dirigent.context.ImmutableContext}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextBenchmark
+{
+    private final ContextFactory factory = new ContextFactory();
+    private final TimeZone timeZone = TimeZone.getTimeZone("UTC");
+
+    private Context context;
+
+    @Setup
+    public void setUp()
+    {
+        context = Contexts.createContext(Locale.GERMANY);
+    }
+
+    @Benchmark
+    public Locale get()
+    {
+        return context.get(Contexts.LOCALE);
+    }
+
+    @Benchmark
+    public TimeZone getDefault()
+    {
+        return context.get(Contexts.TIMEZONE);
+    }
+
+    @Benchmark
+    public Context set()
+    {
+        return context.set(Contexts.TIMEZONE, timeZone);
+    }
+
+    @Benchmark
+    public Context create()
+    {
+        return Contexts.createContext(Locale.GERMANY);
+    }
+
+    @Benchmark
+    public Context createInterned()
+    {
+        return factory.create(Locale.GERMANY);
+    }
+}
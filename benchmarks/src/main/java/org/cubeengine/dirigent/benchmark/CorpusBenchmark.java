@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.workload.Category;
+import org.cubeengine.dirigent.workload.Dirigents;
+import org.cubeengine.dirigent.workload.Message;
+import org.cubeengine.dirigent.workload.TemplateCorpus;
+import org.cubeengine.dirigent.workload.WorkloadGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures composing the messages of the {@link TemplateCorpus}, either of a single category or of the default traffic
+ * mix. Every operation composes the next message of a pre-generated, seeded sequence.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorpusBenchmark
+{
+    /**
+     * The number of pre-generated messages, a power of two.
+     */
+    private static final int MESSAGES = 4096;
+
+    @Param({TemplateCorpus.LATEST})
+    public String corpusVersion;
+
+    @Param({"MIXED", "CHAT", "NOTIFICATION", "HELP", "ESCAPED", "MALFORMED"})
+    public String category;
+
+    @Param({"42"})
+    public long seed;
+
+    private StringBuilderDirigent dirigent;
+    private Message[] messages;
+    private Template[] templates;
+    private Context[] contexts;
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        dirigent = Dirigents.create();
+        WorkloadGenerator generator = new WorkloadGenerator(TemplateCorpus.load(corpusVersion), seed);
+        if (!"MIXED".equals(category))
+        {
+            for (Category c : Category.values())
+            {
+                generator.weight(c, c.name().equals(category) ? 1 : 0);
+            }
+        }
+
+        List<Message> generated = generator.next(MESSAGES);
+        ContextFactory contextFactory = new ContextFactory();
+        Map<String, Template> compiled = new HashMap<String, Template>();
+        messages = generated.toArray(new Message[MESSAGES]);
+        templates = new Template[MESSAGES];
+        contexts = new Context[MESSAGES];
+        for (int i = 0; i < MESSAGES; ++i)
+        {
+            Template template = compiled.get(messages[i].getTemplate());
+            if (template == null)
+            {
+                template = dirigent.compile(messages[i].getTemplate());
+                compiled.put(messages[i].getTemplate(), template);
+            }
+            templates[i] = template;
+            contexts[i] = contextFactory.create(messages[i].getLocale());
+        }
+    }
+
+    @Benchmark
+    public String composeSource()
+    {
+        int i = next++ & (MESSAGES - 1);
+        return dirigent.compose(contexts[i], messages[i].getTemplate(), messages[i].getInputs());
+    }
+
+    @Benchmark
+    public String composeTemplate()
+    {
+        int i = next++ & (MESSAGES - 1);
+        return dirigent.compose(contexts[i], templates[i], messages[i].getInputs());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.formatter.DateTimeFormatter;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.formatter.StringFormatter;
+import org.cubeengine.dirigent.parser.component.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the built-in formatters, both producing a component and appending directly to a builder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark
+{
+    private final NumberFormatter numberFormatter = new NumberFormatter();
+    private final DateTimeFormatter dateTimeFormatter = new DateTimeFormatter();
+    private final StringFormatter stringFormatter = new StringFormatter();
+    private final SampleReflectedFormatter reflectedFormatter = new SampleReflectedFormatter();
+    private final StringBuilder builder = new StringBuilder();
+
+    private Context context;
+    private Arguments numberArgs;
+    private Arguments dateArgs;
+    private Arguments stringArgs;
+    private Date date;
+
+    @Setup
+    public void setUp()
+    {
+        context = Contexts.createContext(Locale.GERMANY);
+        numberArgs = Arguments.create(Collections.<String>emptyList(),
+                                      Collections.singletonMap("format", "#,##0.00"));
+        dateArgs = Arguments.create(Collections.<String>emptyList(),
+                                    Collections.singletonMap("format", "yyyy-MM-dd HH:mm"));
+        stringArgs = Arguments.create(Arrays.asList("uppercase"), Collections.<String, String>emptyMap());
+        date = new Date(0);
+    }
+
+    @Benchmark
+    public Component number()
+    {
+        return numberFormatter.process(1234.5d, context, numberArgs);
+    }
+
+    @Benchmark
+    public Component dateTime()
+    {
+        return dateTimeFormatter.process(date, context, dateArgs);
+    }
+
+    @Benchmark
+    public Component string()
+    {
+        return stringFormatter.process("Alice", context, stringArgs);
+    }
+
+    @Benchmark
+    public Component reflected()
+    {
+        return reflectedFormatter.process("Alice", context, Arguments.NONE);
+    }
+
+    @Benchmark
+    public StringBuilder numberDirect()
+    {
+        builder.setLength(0);
+        numberFormatter.processTo(1234.5d, context, numberArgs, builder);
+        return builder;
+    }
+
+    @Benchmark
+    public StringBuilder stringDirect()
+    {
+        builder.setLength(0);
+        stringFormatter.processTo("Alice", context, stringArgs, builder);
+        return builder;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.builder.StringMessageBuilder;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.parser.MacroResolutionState;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.component.ComponentGroup;
+import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
+import org.cubeengine.dirigent.parser.element.NamedMacro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the output of already resolved components with the {@link StringMessageBuilder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBuilderBenchmark
+{
+    private final StringMessageBuilder messageBuilder = new StringMessageBuilder();
+    private final Context context = Contexts.EMPTY;
+
+    private ComponentGroup flat;
+    private ComponentGroup nested;
+    private StringBuilder builder;
+
+    @Setup
+    public void setUp()
+    {
+        flat = new ComponentGroup(Text.create("Alice"), Text.create(" paid "), Text.create("1.234,50"),
+                                  Text.create(" coins to "), Text.create("Bob"));
+        nested = new ComponentGroup(new ComponentGroup(Text.create("["), flat, Text.create("]")),
+                                    new UnresolvableMacro(new NamedMacro("missing", Arguments.NONE), null,
+                                                          MacroResolutionState.UNKNOWN_NAME));
+        builder = messageBuilder.newBuilder();
+    }
+
+    @Benchmark
+    public String buildFlat()
+    {
+        messageBuilder.buildGroup(flat, builder, context);
+        String message = messageBuilder.finalize(builder, context);
+        builder = messageBuilder.reset(builder);
+        return message;
+    }
+
+    @Benchmark
+    public String buildNested()
+    {
+        messageBuilder.buildGroup(nested, builder, context);
+        String message = messageBuilder.finalize(builder, context);
+        builder = messageBuilder.reset(builder);
+        return message;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.benchmark;
+
+/**
+ * The messages used by the benchmarks.
+ */
+final class Messages
+{
+    /**
+     * A message without any macro.
+     */
+    static final String PLAIN = "This is a plain message without any macro at all.";
+    /**
+     * A short chat line with a single default macro.
+     */
+    static final String SHORT = "{} joined the game";
+    /**
+     * A notification with several named and indexed macros and arguments.
+     */
+    static final String COMPLEX = "{0:string:uppercase} paid {1:number:format=#,##0.00} coins to {2:string} "
+        + "on {3:datetime:format=yyyy-MM-dd HH\\:mm} ({text:static})";
+    /**
+     * A message with many escaped characters.
+     */
+    static final String ESCAPED = "\\{not a macro\\} and \\\\ a backslash \\{again\\} and {} \\{\\}";
+
+    private Messages()
+    {
+    }
+
+    /**
+     * Returns the message of the given kind.
+     *
+     * @param kind The kind of the message.
+     *
+     * @return the message.
+     */
+    static String get(String kind)
+    {
+        if ("plain".equals(kind))
+        {
+            return PLAIN;
+        }
+        if ("short".equals(kind))
+        {
+            return SHORT;
+        }
+        if ("complex".equals(kind))
+        {
+            return COMPLEX;
+        }
+        if ("escaped".equals(kind))
+        {
+            return ESCAPED;
+        }
+        throw new IllegalArgumentException("Unknown message kind: " + kind);
+    }
+}
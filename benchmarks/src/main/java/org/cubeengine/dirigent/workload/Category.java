@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.workload;
+
+/**
+ * The categories of templates in the {@link TemplateCorpus}.
+ */
+public enum Category
+{
+    /**
+     * Short chat lines.
+     */
+    CHAT("chat.txt", 60),
+    /**
+     * Notifications with several named and indexed macros.
+     */
+    NOTIFICATION("notification.txt", 25),
+    /**
+     * Long help pages.
+     */
+    HELP("help.txt", 5),
+    /**
+     * Templates with many escaped characters.
+     */
+    ESCAPED("escaped.txt", 5),
+    /**
+     * Malformed templates.
+     */
+    MALFORMED("malformed.txt", 5);
+
+    private final String fileName;
+    private final int defaultWeight;
+
+    Category(String fileName, int defaultWeight)
+    {
+        this.fileName = fileName;
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * Returns the name of the corpus file holding the templates of this category.
+     *
+     * @return the file name.
+     */
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    /**
+     * Returns the share of this category in the default traffic mix in percent.
+     *
+     * @return the default weight.
+     */
+    public int getDefaultWeight()
+    {
+        return defaultWeight;
+    }
+}
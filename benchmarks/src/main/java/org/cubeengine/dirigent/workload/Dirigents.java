@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.workload;
+
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.formatter.CurrencyFormatter;
+import org.cubeengine.dirigent.formatter.DateFormatter;
+import org.cubeengine.dirigent.formatter.DateTimeFormatter;
+import org.cubeengine.dirigent.formatter.IntegerFormatter;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.formatter.PercentFormatter;
+import org.cubeengine.dirigent.formatter.StaticTextFormatter;
+import org.cubeengine.dirigent.formatter.StringFormatter;
+import org.cubeengine.dirigent.formatter.TimeFormatter;
+
+/**
+ * Creates the dirigent instances used by the benchmarks and the load driver.
+ */
+public final class Dirigents
+{
+    private Dirigents()
+    {
+    }
+
+    /**
+     * Creates a dirigent with all built-in formatters registered.
+     *
+     * @return the dirigent.
+     */
+    public static StringBuilderDirigent create()
+    {
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new StringFormatter());
+        dirigent.registerFormatter(new NumberFormatter());
+        dirigent.registerFormatter(new IntegerFormatter());
+        dirigent.registerFormatter(new CurrencyFormatter());
+        dirigent.registerFormatter(new PercentFormatter());
+        dirigent.registerFormatter(new DateTimeFormatter());
+        dirigent.registerFormatter(new DateFormatter());
+        dirigent.registerFormatter(new TimeFormatter());
+        dirigent.registerFormatter(new StaticTextFormatter());
+        return dirigent;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.workload;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
+import org.cubeengine.dirigent.parser.Template;
+
+/**
+ * A standalone load driver composing the messages of the {@link TemplateCorpus} from several threads sharing a single
+ * dirigent for a fixed duration. It reports the throughput and the latency distribution.
+ * <p>
+ * Usage: {@code java -cp benchmarks/target/benchmarks.jar org.cubeengine.dirigent.workload.LoadDriver
+ * [threads] [seconds] [seed] [corpus version]}
+ */
+public final class LoadDriver
+{
+    /**
+     * The number of latency buckets. Bucket i counts latencies below 2^i nanoseconds.
+     */
+    private static final int BUCKETS = 40;
+    /**
+     * The number of pre-generated messages per thread.
+     */
+    private static final int MESSAGES = 4096;
+
+    private LoadDriver()
+    {
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        String version = args.length > 3 ? args[3] : TemplateCorpus.LATEST;
+
+        final TemplateCorpus corpus = TemplateCorpus.load(version);
+        final StringBuilderDirigent dirigent = Dirigents.create();
+        final ContextFactory contextFactory = new ContextFactory();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        System.out.println("Composing corpus " + version + " with " + threads + " threads for " + seconds + "s, seed "
+                               + seed);
+        List<Thread> workers = new ArrayList<Thread>(threads);
+        for (int t = 0; t < threads; ++t)
+        {
+            final WorkloadGenerator generator = new WorkloadGenerator(corpus, seed + t);
+            Thread worker = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    drive(dirigent, contextFactory, generator.next(MESSAGES), deadline, histogram);
+                }
+            }, "load-driver-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers)
+        {
+            worker.join();
+        }
+        report(histogram, seconds);
+    }
+
+    /**
+     * Composes the messages over and over again until the deadline is reached.
+     *
+     * @param dirigent The shared dirigent.
+     * @param contextFactory The shared context factory.
+     * @param messages The messages of the thread.
+     * @param deadline The deadline in terms of {@link System#nanoTime()}.
+     * @param histogram The shared latency histogram.
+     */
+    private static void drive(StringBuilderDirigent dirigent, ContextFactory contextFactory, List<Message> messages,
+                              long deadline, AtomicLongArray histogram)
+    {
+        Map<String, Template> templates = new HashMap<String, Template>();
+        long[] local = new long[BUCKETS];
+        long blackhole = 0;
+        int i = 0;
+        while (System.nanoTime() < deadline)
+        {
+            Message message = messages.get(i++ % messages.size());
+            Template template = templates.get(message.getTemplate());
+            if (template == null)
+            {
+                template = dirigent.compile(message.getTemplate());
+                templates.put(message.getTemplate(), template);
+            }
+            Context context = contextFactory.create(message.getLocale());
+
+            long start = System.nanoTime();
+            blackhole += dirigent.compose(context, template, message.getInputs()).length();
+            long latency = System.nanoTime() - start;
+            local[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(latency))]++;
+        }
+        for (int b = 0; b < BUCKETS; ++b)
+        {
+            histogram.addAndGet(b, local[b]);
+        }
+        if (blackhole == 42)
+        {
+            System.out.print("");
+        }
+    }
+
+    /**
+     * Prints the throughput and latency percentiles.
+     *
+     * @param histogram The latency histogram.
+     * @param seconds The duration in seconds.
+     */
+    private static void report(AtomicLongArray histogram, int seconds)
+    {
+        long total = 0;
+        for (int b = 0; b < BUCKETS; ++b)
+        {
+            total += histogram.get(b);
+        }
+        System.out.printf("Messages: %d (%.0f/s)%n", total, total / (double)seconds);
+        double[] percentiles = {0.5, 0.9, 0.99, 0.999, 1.0};
+        for (double percentile : percentiles)
+        {
+            long threshold = (long)Math.ceil(total * percentile);
+            long count = 0;
+            for (int b = 0; b < BUCKETS; ++b)
+            {
+                count += histogram.get(b);
+                if (count >= threshold)
+                {
+                    System.out.printf("p%-5s < %d ns%n", percentile * 100, 1L << b);
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.workload;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A message to compose, generated by the {@link WorkloadGenerator}.
+ */
+public final class Message
+{
+    private final Category category;
+    private final String template;
+    private final Locale locale;
+    private final Object[] inputs;
+
+    /**
+     * Constructor.
+     *
+     * @param category The category of the template.
+     * @param template The source of the template.
+     * @param locale The locale of the recipient.
+     * @param inputs The input parameters.
+     */
+    public Message(Category category, String template, Locale locale, Object[] inputs)
+    {
+        this.category = category;
+        this.template = template;
+        this.locale = locale;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Returns the category of the template.
+     *
+     * @return the category.
+     */
+    public Category getCategory()
+    {
+        return category;
+    }
+
+    /**
+     * Returns the source of the template.
+     *
+     * @return the template.
+     */
+    public String getTemplate()
+    {
+        return template;
+    }
+
+    /**
+     * Returns the locale of the recipient.
+     *
+     * @return the locale.
+     */
+    public Locale getLocale()
+    {
+        return locale;
+    }
+
+    /**
+     * Returns the input parameters.
+     *
+     * @return the input parameters.
+     */
+    public Object[] getInputs()
+    {
+        return inputs;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Message{" + "category=" + category + ", template='" + template + '\'' + ", locale=" + locale
+            + ", inputs=" + Arrays.toString(inputs) + '}';
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.workload;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A versioned corpus of representative templates and locales, loaded from the class path resources
+ * {@code corpus/<version>/}. A version must never be changed once benchmark results were published for it, instead a
+ * new version has to be added.
+ * <p>
+ * Each file contains one entry per line. Empty lines and lines starting with {@code "# "} are ignored and the two
+ * characters {@code \n} in a template are replaced by a line break.
+ */
+public final class TemplateCorpus
+{
+    /**
+     * The latest version of the corpus.
+     */
+    public static final String LATEST = "v1";
+
+    private static final String LOCALES_FILE = "locales.txt";
+
+    private final String version;
+    private final Map<Category, List<String>> templates;
+    private final List<Locale> locales;
+
+    private TemplateCorpus(String version, Map<Category, List<String>> templates, List<Locale> locales)
+    {
+        this.version = version;
+        this.templates = templates;
+        this.locales = locales;
+    }
+
+    /**
+     * Loads the latest version of the corpus.
+     *
+     * @return the corpus.
+     */
+    public static TemplateCorpus load()
+    {
+        return load(LATEST);
+    }
+
+    /**
+     * Loads the given version of the corpus.
+     *
+     * @param version The version.
+     *
+     * @return the corpus.
+     */
+    public static TemplateCorpus load(String version)
+    {
+        Map<Category, List<String>> templates = new EnumMap<Category, List<String>>(Category.class);
+        for (Category category : Category.values())
+        {
+            List<String> lines = new ArrayList<String>();
+            for (String line : readLines(version, category.getFileName()))
+            {
+                lines.add(line.replace("\\n", "\n"));
+            }
+            templates.put(category, Collections.unmodifiableList(lines));
+        }
+
+        List<Locale> locales = new ArrayList<Locale>();
+        for (String tag : readLines(version, LOCALES_FILE))
+        {
+            locales.add(Locale.forLanguageTag(tag));
+        }
+        return new TemplateCorpus(version, Collections.unmodifiableMap(templates),
+                                  Collections.unmodifiableList(locales));
+    }
+
+    private static List<String> readLines(String version, String fileName)
+    {
+        String path = "corpus/" + version + "/" + fileName;
+        InputStream in = TemplateCorpus.class.getClassLoader().getResourceAsStream(path);
+        if (in == null)
+        {
+            throw new IllegalArgumentException("The corpus file " + path + " doesn't exist!");
+        }
+        List<String> lines = new ArrayList<String>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (!line.isEmpty() && !line.startsWith("# "))
+                {
+                    lines.add(line);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Failed to read the corpus file " + path, e);
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the version of this corpus.
+     *
+     * @return the version.
+     */
+    public String getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Returns the templates of the given category.
+     *
+     * @param category The category.
+     *
+     * @return the templates.
+     */
+    public List<String> getTemplates(Category category)
+    {
+        return templates.get(category);
+    }
+
+    /**
+     * Returns the locales. Frequent locales are contained several times.
+     *
+     * @return the locales.
+     */
+    public List<Locale> getLocales()
+    {
+        return locales;
+    }
+}
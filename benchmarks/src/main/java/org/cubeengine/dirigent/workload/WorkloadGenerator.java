@@ -0,0 +1,338 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.workload;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.element.CompleteMacro;
+import org.cubeengine.dirigent.parser.element.DefaultMacro;
+import org.cubeengine.dirigent.parser.element.Element;
+import org.cubeengine.dirigent.parser.element.ElementVisitor;
+import org.cubeengine.dirigent.parser.element.IndexedDefaultMacro;
+import org.cubeengine.dirigent.parser.element.NamedMacro;
+
+/**
+ * Generates messages from a {@link TemplateCorpus} with input parameters matching the macros of the templates. The
+ * generator is seeded, so the same seed always produces the same sequence of messages. A generator is not thread safe,
+ * use one generator per thread with different seeds instead.
+ */
+public final class WorkloadGenerator
+{
+    /**
+     * The start of the range of generated dates, 2020-01-01T00:00:00Z.
+     */
+    private static final long DATE_BASE = 1577836800000L;
+    /**
+     * The length of the range of generated dates, about five years.
+     */
+    private static final long DATE_RANGE = 5L * 365 * 24 * 60 * 60 * 1000;
+    private static final String[] SYLLABLES = {"ka", "zu", "mi", "ro", "ne", "tar", "vin", "el", "dor", "an", "sky",
+        "fox", "x", "_", "99", "mc"};
+    private static final String[] WORDS = {"diamond", "sword", "RAIN", "clear", "Thunder", "cobblestone", "ender pearl",
+        "Nether", "the End", "golden apple", "elytra", "beacon"};
+
+    private final TemplateCorpus corpus;
+    private final Random random;
+    private final Map<Category, Integer> weights = new EnumMap<Category, Integer>(Category.class);
+    private final Map<String, InputType[]> inputTypes = new HashMap<String, InputType[]>();
+    private final String[] names;
+    private int totalWeight;
+
+    /**
+     * Constructor. Uses the default weights of the categories.
+     *
+     * @param corpus The corpus.
+     * @param seed The seed.
+     */
+    public WorkloadGenerator(TemplateCorpus corpus, long seed)
+    {
+        this.corpus = corpus;
+        this.random = new Random(seed);
+        for (Category category : Category.values())
+        {
+            weight(category, category.getDefaultWeight());
+            for (String template : corpus.getTemplates(category))
+            {
+                inputTypes.put(template, analyze(template));
+            }
+        }
+
+        // names are part of the seeded sequence as well
+        this.names = new String[64];
+        for (int i = 0; i < names.length; ++i)
+        {
+            StringBuilder name = new StringBuilder();
+            for (int j = 2 + random.nextInt(3); j > 0; --j)
+            {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            names[i] = name.toString();
+        }
+    }
+
+    /**
+     * Sets the weight of a category in the generated traffic mix.
+     *
+     * @param category The category.
+     * @param weight The weight, 0 excludes the category.
+     *
+     * @return fluent interface
+     */
+    public WorkloadGenerator weight(Category category, int weight)
+    {
+        if (weight < 0)
+        {
+            throw new IllegalArgumentException("The weight must not be negative!");
+        }
+        Integer old = weights.put(category, weight);
+        totalWeight += weight - (old == null ? 0 : old);
+        return this;
+    }
+
+    /**
+     * Generates the next message.
+     *
+     * @return the message.
+     */
+    public Message next()
+    {
+        if (totalWeight == 0)
+        {
+            throw new IllegalStateException("All categories are excluded!");
+        }
+        int pick = random.nextInt(totalWeight);
+        for (Category category : Category.values())
+        {
+            pick -= weights.get(category);
+            if (pick < 0)
+            {
+                return next(category);
+            }
+        }
+        throw new AssertionError();
+    }
+
+    /**
+     * Generates the next message of the given category.
+     *
+     * @param category The category.
+     *
+     * @return the message.
+     */
+    public Message next(Category category)
+    {
+        List<String> templates = corpus.getTemplates(category);
+        String template = templates.get(random.nextInt(templates.size()));
+        List<Locale> locales = corpus.getLocales();
+        Locale locale = locales.get(random.nextInt(locales.size()));
+        return new Message(category, template, locale, inputsFor(template));
+    }
+
+    /**
+     * Generates the given number of messages.
+     *
+     * @param count The number of messages.
+     *
+     * @return the messages.
+     */
+    public List<Message> next(int count)
+    {
+        List<Message> messages = new ArrayList<Message>(count);
+        for (int i = 0; i < count; ++i)
+        {
+            messages.add(next());
+        }
+        return messages;
+    }
+
+    /**
+     * Generates input parameters matching the macros of the given template.
+     *
+     * @param template The template.
+     *
+     * @return the input parameters.
+     */
+    public Object[] inputsFor(String template)
+    {
+        InputType[] types = inputTypes.get(template);
+        if (types == null)
+        {
+            types = analyze(template);
+            inputTypes.put(template, types);
+        }
+        Object[] inputs = new Object[types.length];
+        for (int i = 0; i < types.length; ++i)
+        {
+            inputs[i] = generate(types[i]);
+        }
+        return inputs;
+    }
+
+    private Object generate(InputType type)
+    {
+        switch (type)
+        {
+            case INTEGER:
+                // mostly small counts, sometimes large ones
+                return random.nextInt(10) == 0 ? random.nextInt(1000000) : random.nextInt(100);
+            case DECIMAL:
+                return Math.pow(10, random.nextInt(7)) * random.nextDouble();
+            case FRACTION:
+                return random.nextDouble();
+            case DATE:
+                return new Date(DATE_BASE + (long)(random.nextDouble() * DATE_RANGE));
+            case WORD:
+                return WORDS[random.nextInt(WORDS.length)];
+            default:
+                return names[random.nextInt(names.length)];
+        }
+    }
+
+    /**
+     * Determines the type of the input parameter of every macro of the template.
+     *
+     * @param template The template.
+     *
+     * @return the input types by the index of the input parameter.
+     */
+    private static InputType[] analyze(String template)
+    {
+        final Map<Integer, InputType> types = new HashMap<Integer, InputType>();
+        final int[] implicit = {0};
+        final int[] max = {-1};
+        ElementVisitor<Void, Void> visitor = new ElementVisitor<Void, Void>()
+        {
+            @Override
+            public void visitText(Text element, Void a, Void b)
+            {
+            }
+
+            @Override
+            public void visitDefaultMacro(DefaultMacro element, Void a, Void b)
+            {
+                put(implicit[0]++, InputType.NAME);
+            }
+
+            @Override
+            public void visitIndexedDefaultMacro(IndexedDefaultMacro element, Void a, Void b)
+            {
+                put(element.getIndex(), InputType.NAME);
+            }
+
+            @Override
+            public void visitNamedMacro(NamedMacro element, Void a, Void b)
+            {
+                InputType type = InputType.forMacro(element.getName());
+                if (type != null)
+                {
+                    put(implicit[0]++, type);
+                }
+            }
+
+            @Override
+            public void visitCompleteMacro(CompleteMacro element, Void a, Void b)
+            {
+                InputType type = InputType.forMacro(element.getName());
+                if (type != null)
+                {
+                    put(element.getIndex(), type);
+                }
+            }
+
+            private void put(int index, InputType type)
+            {
+                if (index >= 0 && !types.containsKey(index))
+                {
+                    types.put(index, type);
+                    max[0] = Math.max(max[0], index);
+                }
+            }
+        };
+        for (Element element : Parser.parse(template))
+        {
+            element.accept(visitor, null, null);
+        }
+
+        InputType[] result = new InputType[max[0] + 1];
+        for (int i = 0; i < result.length; ++i)
+        {
+            InputType type = types.get(i);
+            result[i] = type == null ? InputType.NAME : type;
+        }
+        return result;
+    }
+
+    /**
+     * The kinds of generated input parameters.
+     */
+    private enum InputType
+    {
+        NAME, WORD, INTEGER, DECIMAL, FRACTION, DATE;
+
+        /**
+         * Returns the input type of a named macro.
+         *
+         * @param name The name of the macro.
+         *
+         * @return the input type or {@code null} for constant macros.
+         */
+        static InputType forMacro(String name)
+        {
+            if ("text".equals(name))
+            {
+                return null;
+            }
+            if ("integer".equals(name) || "long".equals(name) || "short".equals(name) || "amount".equals(name)
+                || "count".equals(name))
+            {
+                return INTEGER;
+            }
+            if ("number".equals(name) || "decimal".equals(name) || "double".equals(name) || "float".equals(name)
+                || "currency".equals(name) || "money".equals(name) || "finance".equals(name))
+            {
+                return DECIMAL;
+            }
+            if ("percent".equals(name) || "percentage".equals(name))
+            {
+                return FRACTION;
+            }
+            if ("date".equals(name) || "time".equals(name) || "datetime".equals(name))
+            {
+                return DATE;
+            }
+            if ("string".equals(name))
+            {
+                return WORD;
+            }
+            return NAME;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A composed message. The event spans composing the message and is only committed if it took longer than the
+ * threshold of the recording, 10 ms by default.
+ */
+@Name(ComposeEvent.NAME)
+@Label("Message Compose")
+@Category("Dirigent")
+@Description("A message composed slower than the threshold")
+@StackTrace(false)
+@Threshold("10 ms")
+final class ComposeEvent extends Event
+{
+    /**
+     * The name of the event type.
+     */
+    static final String NAME = "org.cubeengine.dirigent.Compose";
+
+    @Label("Key")
+    @Description("The key of the message in its catalog, null for messages without key")
+    String key;
+
+    @Label("Template")
+    @Description("The source of the composed message")
+    String template;
+
+    @Label("Input Types")
+    @Description("The classes of the message input parameters")
+    String inputTypes;
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.jfr;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import org.cubeengine.dirigent.formatter.Formatter;
+import org.cubeengine.dirigent.metrics.DirigentMetrics;
+
+/**
+ * Emits Java Flight Recorder events for messages and formatter calls which are slower than a threshold:
+ *
+ * - {@code org.cubeengine.dirigent.Compose} with the message key, the template source and the input types
+ * - {@code org.cubeengine.dirigent.Format} with the formatter class and the input type
+ *
+ * The events span the message or formatter call, so their JFR duration is the measured one and the thresholds are the
+ * {@code threshold} settings of the recording, by default 10 ms for messages and 1 ms for formatter calls. They can be
+ * changed per recording, e.g. in a {@code .jfc} settings file or with {@code Recording#enable(String)}. The events are
+ * recorded by every flight recording, e.g. one started with {@code jcmd <pid> JFR.start}, unless they are disabled in
+ * its settings.
+ *
+ * The events only read the clock while their type is enabled by a running recording. These metrics don't measure
+ * durations themselves, see {@link #isTiming()}, so the dirigent doesn't read the clock for them either and messages
+ * of {@link org.cubeengine.dirigent.codegen.CompiledMessages} keep using the generated code, which isn't traced.
+ */
+public class JfrMetrics extends DirigentMetrics
+{
+    static
+    {
+        FlightRecorder.register(ComposeEvent.class);
+        FlightRecorder.register(FormatEvent.class);
+    }
+
+    private static final EventType COMPOSE = EventType.getEventType(ComposeEvent.class);
+    private static final EventType FORMAT = EventType.getEventType(FormatEvent.class);
+
+    @Override
+    public boolean isTiming()
+    {
+        return false;
+    }
+
+    @Override
+    public Object beginCompose()
+    {
+        if (!COMPOSE.isEnabled())
+        {
+            return null;
+        }
+        ComposeEvent event = new ComposeEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endCompose(Object trace, String key, String source, Object[] inputs)
+    {
+        ComposeEvent event = (ComposeEvent)trace;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.key = key;
+            event.template = source;
+            event.inputTypes = typesOf(inputs);
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginFormat()
+    {
+        if (!FORMAT.isEnabled())
+        {
+            return null;
+        }
+        FormatEvent event = new FormatEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endFormat(Object trace, Formatter<?> formatter, Object input)
+    {
+        FormatEvent event = (FormatEvent)trace;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.formatter = formatter.getClass();
+            event.inputType = input == null ? null : input.getClass();
+            event.commit();
+        }
+    }
+
+    /**
+     * Lists the class names of the input parameters.
+     *
+     * @param inputs The message input parameters.
+     *
+     * @return the comma separated class names.
+     */
+    private static String typesOf(Object[] inputs)
+    {
+        StringBuilder types = new StringBuilder();
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            if (i > 0)
+            {
+                types.append(", ");
+            }
+            types.append(inputs[i] == null ? "null" : inputs[i].getClass().getName());
+        }
+        return types.toString();
+    }
+}
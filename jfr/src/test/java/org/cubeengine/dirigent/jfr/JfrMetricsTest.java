@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.formatter.AbstractFormatter;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.component.Component;
+import org.junit.Test;
+
+import static org.cubeengine.dirigent.context.Contexts.createContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JfrMetricsTest
+{
+    @Test
+    public void testSlowCallsAreRecorded() throws Exception
+    {
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new NumberFormatter());
+        dirigent.registerFormatter(new SlowFormatter());
+        JfrMetrics metrics = new JfrMetrics();
+        dirigent.setMetrics(metrics);
+        assertFalse(metrics.isTiming());
+        assertNull(metrics.beginCompose());
+        Template slow = dirigent.compile(new Template("slow.key", "{slow}", Parser.parse("{slow}")));
+
+        Path file = Files.createTempFile("dirigent", ".jfr");
+        try (Recording recording = new Recording())
+        {
+            recording.enable(ComposeEvent.NAME).withThreshold(Duration.ofMillis(5));
+            recording.enable(FormatEvent.NAME).withThreshold(Duration.ofMillis(5));
+            recording.start();
+            assertEquals("1 fast", dirigent.compose("{number} fast", 1));
+            assertEquals("slow!", dirigent.compose("{slow}", "slow"));
+            assertEquals("slow!", dirigent.compose(createContext(), slow, "slow"));
+            recording.stop();
+            recording.dump(file);
+
+            Set<String> keys = new HashSet<>();
+            int composeEvents = 0;
+            int formatEvents = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file))
+            {
+                // the fast message might be slow as well when the JVM is cold or collects garbage
+                if (ComposeEvent.NAME.equals(event.getEventType().getName())
+                    && "{slow}".equals(event.getString("template")))
+                {
+                    assertEquals("java.lang.String", event.getString("inputTypes"));
+                    assertTrue(event.getDuration().toMillis() >= 10);
+                    keys.add(event.getString("key"));
+                    composeEvents++;
+                }
+                else if (FormatEvent.NAME.equals(event.getEventType().getName())
+                    && SlowFormatter.class.getName().equals(event.getClass("formatter").getName()))
+                {
+                    assertEquals(String.class.getName(), event.getClass("inputType").getName());
+                    assertTrue(event.getDuration().toMillis() >= 10);
+                    formatEvents++;
+                }
+            }
+            assertEquals(2, composeEvents);
+            assertEquals(new HashSet<>(Arrays.asList(null, "slow.key")), keys);
+            assertEquals(2, formatEvents);
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    private static class SlowFormatter extends AbstractFormatter<String>
+    {
+        SlowFormatter()
+        {
+            super(String.class, "slow");
+        }
+
+        @Override
+        protected Component format(String input, Context context, Arguments args)
+        {
+            try
+            {
+                Thread.sleep(10);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return Text.create(input + "!");
+        }
+    }
+}
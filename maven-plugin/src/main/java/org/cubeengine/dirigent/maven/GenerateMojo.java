@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.maven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.cubeengine.dirigent.catalog.DirectorySource;
+import org.cubeengine.dirigent.codegen.TemplateClassGenerator;
+
+/**
+ * Generates a {@link org.cubeengine.dirigent.codegen.CompiledMessages} class from the messages of one locale of a
+ * message directory, see {@link TemplateClassGenerator}. The generated source is added to the compile source roots of
+ * the project. The message files are named as expected by {@link DirectorySource}.
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class GenerateMojo extends AbstractMojo
+{
+    /**
+     * The directory containing the message files.
+     */
+    @Parameter(defaultValue = "${project.basedir}/src/main/messages", required = true)
+    private File messageDirectory;
+
+    /**
+     * The base name of the message files.
+     */
+    @Parameter(defaultValue = "messages", required = true)
+    private String baseName;
+
+    /**
+     * The locale of the messages to compile, e.g. {@code de_AT}. The messages without locale suffix are compiled by
+     * default.
+     */
+    @Parameter(defaultValue = "")
+    private String locale;
+
+    /**
+     * The fully qualified name of the generated class.
+     */
+    @Parameter(required = true)
+    private String className;
+
+    /**
+     * The directory to write the generated source to.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/dirigent", required = true)
+    private File outputDirectory;
+
+    /**
+     * Skips the generation.
+     */
+    @Parameter(defaultValue = "false", property = "dirigent.skip")
+    private boolean skip;
+
+    /**
+     * The project to add the generated source to.
+     */
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException
+    {
+        if (skip)
+        {
+            getLog().info("Skipping the generation of the message class");
+            return;
+        }
+
+        final Map<Locale, Map<String, String>> messages;
+        try
+        {
+            messages = new DirectorySource(messageDirectory, baseName).load();
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("Failed to read the messages of " + messageDirectory, e);
+        }
+        final String localeName = locale == null ? "" : locale;
+        Map<String, String> localeMessages = null;
+        for (Map.Entry<Locale, Map<String, String>> entry : messages.entrySet())
+        {
+            if (entry.getKey().toString().equals(localeName))
+            {
+                localeMessages = entry.getValue();
+            }
+        }
+        if (localeMessages == null)
+        {
+            throw new MojoExecutionException("No messages of the locale '" + localeName + "' in " + messageDirectory);
+        }
+
+        final int dot = className.lastIndexOf('.');
+        final String packageName = dot < 0 ? "" : className.substring(0, dot);
+        final String simpleName = className.substring(dot + 1);
+        final File file = new File(outputDirectory, className.replace('.', File.separatorChar) + ".java");
+        try
+        {
+            File parent = file.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs())
+            {
+                throw new IOException("Can't create the directory " + parent);
+            }
+            byte[] source = TemplateClassGenerator.generate(packageName, simpleName, localeMessages).getBytes(
+                StandardCharsets.UTF_8);
+            try (OutputStream out = new FileOutputStream(file))
+            {
+                out.write(source);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("Failed to write " + file, e);
+        }
+        project.addCompileSourceRoot(outputDirectory.getPath());
+        getLog().info("Generated " + className + " with " + localeMessages.size() + " messages");
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.cubeengine.dirigent.catalog.DirectorySource;
+import org.cubeengine.dirigent.catalog.MappedTemplateStore;
+import org.cubeengine.dirigent.parser.MalformedMacroException;
+import org.cubeengine.dirigent.parser.Parser;
+
+/**
+ * Checks the message files of a directory for malformed macros and writes the parsed messages to a template store,
+ * which is loaded at runtime by {@link MappedTemplateStore#open(File, int, org.cubeengine.dirigent.TemplateDirigent)}
+ * or {@link MappedTemplateStore#read(java.io.InputStream, int, org.cubeengine.dirigent.TemplateDirigent)} without
+ * parsing the messages again. The message files are named as expected by {@link DirectorySource}.
+ */
+@Mojo(name = "precompile", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
+public class PrecompileMojo extends AbstractMojo
+{
+    /**
+     * The directory containing the message files.
+     */
+    @Parameter(defaultValue = "${project.basedir}/src/main/messages", required = true)
+    private File messageDirectory;
+
+    /**
+     * The base name of the message files.
+     */
+    @Parameter(defaultValue = "messages", required = true)
+    private String baseName;
+
+    /**
+     * The template store file to write.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/messages.dirigent", required = true)
+    private File outputFile;
+
+    /**
+     * Whether malformed macros fail the build. Otherwise they are only reported as warnings and kept as text.
+     */
+    @Parameter(defaultValue = "true", property = "dirigent.failOnMalformed")
+    private boolean failOnMalformed;
+
+    /**
+     * Skips the precompilation.
+     */
+    @Parameter(defaultValue = "false", property = "dirigent.skip")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+        if (skip)
+        {
+            getLog().info("Skipping the precompilation of the messages");
+            return;
+        }
+        if (!messageDirectory.isDirectory())
+        {
+            getLog().info("No message directory " + messageDirectory);
+            return;
+        }
+
+        final Map<Locale, Map<String, String>> messages;
+        try
+        {
+            messages = new DirectorySource(messageDirectory, baseName).load();
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("Failed to read the messages of " + messageDirectory, e);
+        }
+
+        int count = 0;
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<Locale, Map<String, String>> localeMessages : messages.entrySet())
+        {
+            String locale = localeMessages.getKey().toString();
+            List<String> keys = new ArrayList<>(localeMessages.getValue().keySet());
+            Collections.sort(keys);
+            for (String key : keys)
+            {
+                count++;
+                try
+                {
+                    Parser.parseStrict(localeMessages.getValue().get(key));
+                }
+                catch (MalformedMacroException e)
+                {
+                    errors.add((locale.isEmpty() ? "" : locale + ": ") + key + ": " + e.getMessage());
+                }
+            }
+        }
+        Collections.sort(errors);
+        for (String error : errors)
+        {
+            if (failOnMalformed)
+            {
+                getLog().error(error);
+            }
+            else
+            {
+                getLog().warn(error);
+            }
+        }
+        if (failOnMalformed && !errors.isEmpty())
+        {
+            throw new MojoFailureException(errors.size() + " of " + count + " messages contain malformed macros");
+        }
+
+        try
+        {
+            File parent = outputFile.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+            {
+                throw new IOException("Can't create the directory " + parent);
+            }
+            MappedTemplateStore.write(outputFile, messages);
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("Failed to write " + outputFile, e);
+        }
+        getLog().info("Precompiled " + count + " messages of " + messages.size() + " locales to " + outputFile);
+    }
+}
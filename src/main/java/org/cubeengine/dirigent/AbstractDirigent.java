@@ -23,9 +23,23 @@
 package org.cubeengine.dirigent;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.cubeengine.dirigent.cache.OutputCache;
 import org.cubeengine.dirigent.context.Context;
 import org.cubeengine.dirigent.context.Contexts;
 import org.cubeengine.dirigent.formatter.ConstantFormatter;
@@ -33,16 +47,26 @@ import org.cubeengine.dirigent.formatter.Formatter;
 import org.cubeengine.dirigent.formatter.PostProcessor;
 import org.cubeengine.dirigent.formatter.StringFormatter;
 import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.metrics.DirigentMetrics;
+import org.cubeengine.dirigent.metrics.Phase;
+import org.cubeengine.dirigent.metrics.UnresolvedMacroListener;
 import org.cubeengine.dirigent.parser.MacroResolutionResult;
 import org.cubeengine.dirigent.parser.MacroResolutionState;
 import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.Text;
 import org.cubeengine.dirigent.parser.component.Component;
+import org.cubeengine.dirigent.parser.component.ComponentArena;
 import org.cubeengine.dirigent.parser.component.ComponentGroup;
+import org.cubeengine.dirigent.parser.component.DeferredMacro;
 import org.cubeengine.dirigent.parser.component.ResolvedMacro;
 import org.cubeengine.dirigent.parser.component.TextComponent;
 import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
+import org.cubeengine.dirigent.parser.element.CompleteMacro;
+import org.cubeengine.dirigent.parser.element.DefaultMacro;
 import org.cubeengine.dirigent.parser.element.Element;
-import org.cubeengine.dirigent.parser.element.Indexed;
+import org.cubeengine.dirigent.parser.element.ElementVisitor;
+import org.cubeengine.dirigent.parser.element.IndexedDefaultMacro;
 import org.cubeengine.dirigent.parser.element.Macro;
 import org.cubeengine.dirigent.parser.element.NamedMacro;
 
@@ -51,21 +75,63 @@ import org.cubeengine.dirigent.parser.element.NamedMacro;
  * - Parsing the source message but not composing the final message components
  * - Formatters and PostProcessors
  */
-public abstract class AbstractDirigent<MessageT> implements Dirigent<MessageT>
+public abstract class AbstractDirigent<MessageT> implements TemplateDirigent<MessageT>
 {
     /**
-     * The registered formatter.
+     * The number of rows composed by a single task when composing in parallel.
      */
-    private Map<String, List<Formatter<?>>> formatters = new HashMap<String, List<Formatter<?>>>();
+    static final int PARALLEL_CHUNK_SIZE = 1024;
+    /**
+     * The maximum number of chunks per processor which are composed ahead of passing them to the sink.
+     */
+    private static final int PARALLEL_CHUNKS_PER_PROCESSOR = 4;
+
+    /**
+     * The registered formatter. Formatters may be registered while messages are composed concurrently.
+     */
+    private final ConcurrentMap<String, List<Formatter<?>>> formatters =
+        new ConcurrentHashMap<String, List<Formatter<?>>>();
     /**
      * The attached post processors.
      */
-    private List<PostProcessor> postProcessors = new ArrayList<PostProcessor>();
+    private final List<PostProcessor> postProcessors = new CopyOnWriteArrayList<PostProcessor>();
 
     /**
      * The default formatter.
      */
-    private Formatter<Object> defaultFormatter;
+    private final Formatter<Object> defaultFormatter;
+
+    /**
+     * The optional cache of composed messages.
+     */
+    private volatile OutputCache<MessageT> outputCache;
+
+    /**
+     * The metrics listener.
+     */
+    private volatile DirigentMetrics metrics = DirigentMetrics.NONE;
+
+    /**
+     * The listener of the unresolvable macros or {@code null}.
+     */
+    private volatile UnresolvedMacroListener unresolvedListener;
+
+    /**
+     * Whether intermediate components are pooled.
+     */
+    private volatile boolean pooling = false;
+
+    /**
+     * The pooled compose state of every thread.
+     */
+    private final ThreadLocal<Pool<MessageT>> pools = new ThreadLocal<Pool<MessageT>>()
+    {
+        @Override
+        protected Pool<MessageT> initialValue()
+        {
+            return new Pool<MessageT>();
+        }
+    };
 
     /**
      * Constructor. Uses the {@link StringFormatter} as the default formatter.
@@ -94,9 +160,559 @@ public abstract class AbstractDirigent<MessageT> implements Dirigent<MessageT>
     @Override
     public MessageT compose(Context context, String source, Object... inputs)
     {
+        final DirigentMetrics metrics = this.metrics;
+        if (metrics == DirigentMetrics.NONE)
+        {
+            return composeElements(source, parse(source), context, inputs);
+        }
+        final Object trace = metrics.beginCompose();
+        final boolean timing = metrics.isTiming();
+        final long start = timing ? System.nanoTime() : 0;
+        MessageT message = composeElements(source, parse(source), context, inputs);
+        if (timing)
+        {
+            metrics.composed(source, inputs, System.nanoTime() - start);
+        }
+        if (trace != null)
+        {
+            metrics.endCompose(trace, null, source, inputs);
+        }
+        return message;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The formatters of the named macros {@link Formatter#prepare(Arguments) prepare} their arguments, e.g. by parsing
+     * nested messages. Macros of {@link ConstantFormatter#isPure() pure} constant formatters are folded into static
+     * text and merged with the adjacent text, unless global {@link PostProcessor}s are attached. Therefore messages
+     * should be compiled after all formatters and post processors were registered.
+     */
+    @Override
+    public Template compile(String source)
+    {
+        return compile(null, source, parse(source));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The key of the parsed template is kept.
+     *
+     * @see #compile(String)
+     */
+    @Override
+    public Template compile(Template parsed)
+    {
+        return compile(parsed.getKey(), parsed.getSource(), parsed.getElements());
+    }
+
+    /**
+     * Prepares the arguments of the parsed elements and folds the constant macros.
+     *
+     * @param key The key of the message. May be null.
+     * @param source The source message.
+     * @param elements The parsed elements.
+     *
+     * @return the compiled template.
+     */
+    private Template compile(String key, String source, List<Element> elements)
+    {
+        prepare(elements);
+        if (postProcessors.isEmpty())
+        {
+            elements = foldConstants(elements);
+        }
+        return new Template(key, source, elements);
+    }
+
+    /**
+     * Lets the formatters of the named macros prepare their arguments, see {@link Formatter#prepare(Arguments)}.
+     *
+     * @param elements The parsed elements.
+     */
+    private void prepare(List<Element> elements)
+    {
+        for (Element element : elements)
+        {
+            if (element instanceof NamedMacro && ((NamedMacro)element).getArgs() != Arguments.NONE)
+            {
+                List<Formatter<?>> list = this.formatters.get(((NamedMacro)element).getName());
+                if (list != null)
+                {
+                    for (Formatter<?> formatter : list)
+                    {
+                        formatter.prepare(((NamedMacro)element).getArgs());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the source message and records the duration if metrics are enabled.
+     *
+     * @param source The source message.
+     *
+     * @return the parsed elements.
+     */
+    private List<Element> parse(String source)
+    {
+        final DirigentMetrics metrics = this.metrics;
+        if (!metrics.isTiming())
+        {
+            return Parser.parse(source);
+        }
+        final long start = System.nanoTime();
         List<Element> elements = Parser.parse(source);
-        ComponentGroup message = resolve(elements, context, inputs);
-        return compose(message, context);
+        metrics.phase(Phase.PARSE, System.nanoTime() - start);
+        return elements;
+    }
+
+    /**
+     * Replaces the macros of pure constant formatters by the static text they result in and merges it with adjacent
+     * text elements.
+     *
+     * @param elements The parsed elements.
+     *
+     * @return the folded elements.
+     */
+    private List<Element> foldConstants(List<Element> elements)
+    {
+        List<Element> folded = new ArrayList<Element>(elements.size());
+        boolean changed = false;
+        for (Element element : elements)
+        {
+            Element out = element;
+            if (element instanceof NamedMacro)
+            {
+                NamedMacro macro = (NamedMacro)element;
+                Text text = foldConstant(macro.getName(), macro.getArgs());
+                if (text != null)
+                {
+                    out = text;
+                    changed = true;
+                }
+            }
+
+            int lastIndex = folded.size() - 1;
+            if (out instanceof Text && lastIndex >= 0 && folded.get(lastIndex) instanceof Text)
+            {
+                folded.set(lastIndex, Text.append((Text)folded.get(lastIndex), (Text)out));
+            }
+            else
+            {
+                folded.add(out);
+            }
+        }
+        return changed ? folded : elements;
+    }
+
+    /**
+     * Folds a macro into static text if it is handled by a pure constant formatter.
+     *
+     * @param name The name of the macro.
+     * @param arguments The macro arguments.
+     *
+     * @return the static text or {@code null} if the macro can't be folded.
+     */
+    private Text foldConstant(String name, Arguments arguments)
+    {
+        List<Formatter<?>> list = this.formatters.get(name);
+        if (list == null || !(list.get(0) instanceof ConstantFormatter))
+        {
+            return null;
+        }
+        Component component = ((ConstantFormatter)list.get(0)).fold(arguments);
+        if (component instanceof TextComponent)
+        {
+            return Text.create(((TextComponent)component).getText());
+        }
+        return null;
+    }
+
+    @Override
+    public MessageT compose(Context context, Template template, Object... inputs)
+    {
+        final DirigentMetrics metrics = this.metrics;
+        if (metrics == DirigentMetrics.NONE)
+        {
+            return composeTemplate(context, template, inputs);
+        }
+        final Object trace = metrics.beginCompose();
+        final boolean timing = metrics.isTiming();
+        final long start = timing ? System.nanoTime() : 0;
+        MessageT message = composeTemplate(context, template, inputs);
+        if (timing)
+        {
+            metrics.composed(template.getSource(), inputs, System.nanoTime() - start);
+        }
+        if (trace != null)
+        {
+            metrics.endCompose(trace, template.getKey(), template.getSource(), inputs);
+        }
+        return message;
+    }
+
+    /**
+     * Composes the message from a compiled template, serving it from the output cache if possible.
+     *
+     * @param context The compose context.
+     * @param template The compiled message.
+     * @param inputs The message input parameters.
+     *
+     * @return the composed message.
+     */
+    private MessageT composeTemplate(Context context, Template template, Object[] inputs)
+    {
+        final OutputCache<MessageT> cache = this.outputCache;
+        if (cache != null && OutputCache.isCacheable(inputs))
+        {
+            final long generation = cache.getGeneration();
+            MessageT cached = cache.get(template, context, inputs);
+            if (cached == null)
+            {
+                metrics.cacheMiss();
+                cached = composeElements(template.getSource(), template.getElements(), context, inputs);
+                cache.put(template, context, inputs, cached, generation);
+            }
+            else
+            {
+                metrics.cacheHit();
+            }
+            return cached;
+        }
+        return composeElements(template.getSource(), template.getElements(), context, inputs);
+    }
+
+    /**
+     * Composes the message from the parsed {@link Element}s. If pooling is enabled, the intermediate components and
+     * the {@link Composer} are reused from the pool of the current thread, unless it is already in use by an enclosing
+     * compose, e.g. a formatter composing a nested message.
+     *
+     * @param source The source of the message.
+     * @param elements The parsed elements.
+     * @param context The compose context.
+     * @param inputs The message input parameters.
+     *
+     * @return the composed message.
+     */
+    private MessageT composeElements(String source, List<Element> elements, Context context, Object[] inputs)
+    {
+        if (pooling)
+        {
+            final Pool<MessageT> pool = pools.get();
+            if (pool.arena.acquire())
+            {
+                boolean composed = false;
+                try
+                {
+                    if (pool.composer == null || pool.context != context)
+                    {
+                        pool.composer = newComposer(context);
+                        pool.context = context;
+                    }
+                    MessageT message = build(pool.composer,
+                                             resolve(source, elements, context, inputs, null, pool.arena), context);
+                    composed = true;
+                    return message;
+                }
+                finally
+                {
+                    if (!composed)
+                    {
+                        // the composer might be in an inconsistent state
+                        pool.composer = null;
+                        pool.context = null;
+                    }
+                    pool.arena.release();
+                }
+            }
+        }
+        return build(null, resolve(source, elements, context, inputs), context);
+    }
+
+    /**
+     * Builds the final message from the resolved components and records the duration if metrics are enabled.
+     *
+     * @param composer The composer to use or {@code null} to use {@link #compose(ComponentGroup, Context)}.
+     * @param componentGroup A component group holding the entire message components.
+     * @param context The compose context.
+     *
+     * @return the composed message.
+     */
+    private MessageT build(Composer<MessageT> composer, ComponentGroup componentGroup, Context context)
+    {
+        final DirigentMetrics metrics = this.metrics;
+        if (!metrics.isTiming())
+        {
+            return composer == null ? compose(componentGroup, context) : composer.compose(componentGroup);
+        }
+        final long start = System.nanoTime();
+        MessageT message = composer == null ? compose(componentGroup, context) : composer.compose(componentGroup);
+        metrics.phase(Phase.BUILD, System.nanoTime() - start);
+        return message;
+    }
+
+    @Override
+    public Map<Context, MessageT> composeForAll(Template template, Collection<? extends Context> contexts,
+                                                Object... inputs)
+    {
+        Map<Context, MessageT> messages = new HashMap<Context, MessageT>();
+        for (Context context : contexts)
+        {
+            if (!messages.containsKey(context))
+            {
+                messages.put(context, compose(context, template, inputs));
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public void composeAll(Context context, Template template, Iterable<Object[]> rows,
+                           MessageSink<? super MessageT> sink)
+    {
+        Composer<MessageT> composer = newComposer(context);
+        ComponentArena arena = pooling ? new ComponentArena() : null;
+        final String source = template.getSource();
+        final List<Element> elements = template.getElements();
+        for (Object[] row : rows)
+        {
+            if (arena == null)
+            {
+                sink.accept(build(composer, resolve(source, elements, context, row), context));
+                continue;
+            }
+            MessageT message;
+            arena.acquire();
+            try
+            {
+                message = build(composer, resolve(source, elements, context, row, null, arena), context);
+            }
+            finally
+            {
+                arena.release();
+            }
+            sink.accept(message);
+        }
+    }
+
+    @Override
+    public void composeAll(Context context, Template template, List<Object[]> rows, MessageSink<? super MessageT> sink,
+                           Executor executor)
+    {
+        if (rows.size() <= PARALLEL_CHUNK_SIZE)
+        {
+            composeAll(context, template, rows, sink);
+            return;
+        }
+
+        final int chunks = (rows.size() + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        final int maxPending = PARALLEL_CHUNKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        final LinkedList<Future<List<MessageT>>> pending = new LinkedList<Future<List<MessageT>>>();
+        int next = 0;
+        try
+        {
+            while (next < chunks && pending.size() < maxPending)
+            {
+                pending.add(submitChunk(context, template, rows, next++, executor));
+            }
+            while (!pending.isEmpty())
+            {
+                List<MessageT> messages = await(pending.removeFirst());
+                if (next < chunks)
+                {
+                    pending.add(submitChunk(context, template, rows, next++, executor));
+                }
+                for (MessageT message : messages)
+                {
+                    sink.accept(message);
+                }
+            }
+        }
+        finally
+        {
+            for (Future<List<MessageT>> future : pending)
+            {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Submits a task composing a chunk of rows to the executor.
+     *
+     * @param context The compose context.
+     * @param template The compiled message.
+     * @param rows All rows of message parameters.
+     * @param chunk The index of the chunk.
+     * @param executor The executor to run the task.
+     *
+     * @return the future of the composed messages.
+     */
+    private Future<List<MessageT>> submitChunk(final Context context, final Template template,
+                                               final List<Object[]> rows, int chunk, Executor executor)
+    {
+        final int from = chunk * PARALLEL_CHUNK_SIZE;
+        final int to = Math.min(from + PARALLEL_CHUNK_SIZE, rows.size());
+        FutureTask<List<MessageT>> task = new FutureTask<List<MessageT>>(new Callable<List<MessageT>>()
+        {
+            @Override
+            public List<MessageT> call() throws Exception
+            {
+                final List<MessageT> messages = new ArrayList<MessageT>(to - from);
+                composeAll(context, template, rows.subList(from, to), new MessageSink<MessageT>()
+                {
+                    @Override
+                    public void accept(MessageT message)
+                    {
+                        messages.add(message);
+                    }
+                });
+                return messages;
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Waits for the result of the future and rethrows failures of the task.
+     *
+     * @param future The future.
+     * @param <T> The result type.
+     *
+     * @return the result.
+     */
+    private static <T> T await(Future<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for composed messages!", e);
+        }
+        catch (ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public Future<MessageT> composeAsync(Executor executor, final Context context, Template template,
+                                         Object... inputs)
+    {
+        final List<DeferredMacro> deferred = new ArrayList<DeferredMacro>();
+        final ComponentGroup message = resolve(template.getSource(), template.getElements(), context, inputs, deferred,
+                                               null);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final FutureTask<MessageT> result = new FutureTask<MessageT>(new Callable<MessageT>()
+        {
+            @Override
+            public MessageT call() throws Exception
+            {
+                final Throwable t = failure.get();
+                if (t instanceof Exception)
+                {
+                    throw (Exception)t;
+                }
+                if (t instanceof Error)
+                {
+                    throw (Error)t;
+                }
+                return build(null, message, context);
+            }
+        });
+
+        if (deferred.isEmpty())
+        {
+            executor.execute(result);
+            return result;
+        }
+
+        // the task formatting the last macro composes the message, so no thread waits for the others
+        final AtomicInteger remaining = new AtomicInteger(deferred.size());
+        for (final DeferredMacro macro : deferred)
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        if (!result.isDone() && failure.get() == null)
+                        {
+                            final DirigentMetrics metrics = AbstractDirigent.this.metrics;
+                            final Object trace = metrics.beginFormat();
+                            final boolean timing = metrics.isTiming();
+                            final long start = timing ? System.nanoTime() : 0;
+                            macro.format(context);
+                            if (timing)
+                            {
+                                metrics.formatted(macro.getFormatter(), macro.getInput(), System.nanoTime() - start);
+                            }
+                            if (trace != null)
+                            {
+                                metrics.endFormat(trace, macro.getFormatter(), macro.getInput());
+                            }
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failure.compareAndSet(null, t);
+                    }
+                    finally
+                    {
+                        if (remaining.decrementAndGet() == 0)
+                        {
+                            result.run();
+                        }
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public ComponentGroup resolve(Context context, Template template, Object... inputs)
+    {
+        return resolve(template.getSource(), template.getElements(), context, inputs);
+    }
+
+    /**
+     * Creates a {@link Composer} composing several messages with the same context one after another on the current
+     * thread. Implementations may override this method to reuse resources between the messages. By default every
+     * message is composed using {@link #compose(ComponentGroup, Context)}.
+     *
+     * @param context The compose context.
+     *
+     * @return the composer.
+     */
+    protected Composer<MessageT> newComposer(final Context context)
+    {
+        return new Composer<MessageT>()
+        {
+            @Override
+            public MessageT compose(ComponentGroup componentGroup)
+            {
+                return AbstractDirigent.this.compose(componentGroup, context);
+            }
+        };
     }
 
     /**
@@ -109,11 +725,119 @@ public abstract class AbstractDirigent<MessageT> implements Dirigent<MessageT>
      */
     protected abstract MessageT compose(ComponentGroup componentGroup, Context context);
 
+    /**
+     * Sets the cache of composed messages. Messages composed from a {@link Template} will be served from this cache if
+     * possible. Only use a cache if all formatters and post processors produce the same output for the same input and
+     * the message type is immutable. The cache is invalidated when it is set and whenever a formatter or a global post
+     * processor is registered.
+     *
+     * @param outputCache The cache or {@code null} to disable caching.
+     *
+     * @return fluent interface
+     */
+    public AbstractDirigent<MessageT> setOutputCache(OutputCache<MessageT> outputCache)
+    {
+        if (outputCache != null)
+        {
+            outputCache.invalidate();
+        }
+        this.outputCache = outputCache;
+        return this;
+    }
+
+    /**
+     * Returns the cache of composed messages.
+     *
+     * @return the cache or {@code null} if caching is disabled.
+     */
+    public OutputCache<MessageT> getOutputCache()
+    {
+        return outputCache;
+    }
+
+    /**
+     * Sets the listener of the compose pipeline timings. The message builder of a
+     * {@link org.cubeengine.dirigent.builder.BuilderDirigent} records the formatter calls to the same listener.
+     *
+     * @param metrics The metrics listener or {@code null} to disable the metrics.
+     *
+     * @return fluent interface
+     */
+    public AbstractDirigent<MessageT> setMetrics(DirigentMetrics metrics)
+    {
+        this.metrics = metrics == null ? DirigentMetrics.NONE : metrics;
+        return this;
+    }
+
+    /**
+     * Returns the listener of the compose pipeline timings.
+     *
+     * @return the metrics listener, {@link DirigentMetrics#NONE} if the metrics are disabled.
+     */
+    public DirigentMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Sets the listener of the macros which couldn't be resolved. It is only called for unresolvable macros, so it
+     * doesn't slow down composing messages otherwise.
+     *
+     * @param listener The listener or {@code null} to disable it.
+     *
+     * @return fluent interface
+     */
+    public AbstractDirigent<MessageT> setUnresolvedMacroListener(UnresolvedMacroListener listener)
+    {
+        this.unresolvedListener = listener;
+        return this;
+    }
+
+    /**
+     * Returns the listener of the macros which couldn't be resolved.
+     *
+     * @return the listener or {@code null} if there is none.
+     */
+    public UnresolvedMacroListener getUnresolvedMacroListener()
+    {
+        return unresolvedListener;
+    }
+
+    /**
+     * Enables pooling of the intermediate components. When enabled, the component groups, resolved macros and builders
+     * used while composing a message are kept by the composing thread and reused for its next message, so composing
+     * simple messages only allocates the final message and whatever the formatters create. Only enable pooling if the
+     * {@link org.cubeengine.dirigent.builder.MessageBuilder} doesn't keep references to the components in the message.
+     *
+     * @param pooling Whether to pool the intermediate components.
+     *
+     * @return fluent interface
+     */
+    public AbstractDirigent<MessageT> setPooling(boolean pooling)
+    {
+        this.pooling = pooling;
+        return this;
+    }
+
+    /**
+     * Returns whether the intermediate components are pooled.
+     *
+     * @return whether pooling is enabled.
+     */
+    public boolean isPooling()
+    {
+        return pooling;
+    }
+
     @Override
     public MacroResolutionResult findFormatter(String name, Object input)
     {
-        if (name == null && defaultFormatter != null)
+        if (name == null)
         {
+            if (defaultFormatter == null)
+            {
+                return MacroResolutionResult.UNKNOWN_NAME;
+            }
             return new MacroResolutionResult(MacroResolutionState.OK, defaultFormatter);
         }
 
@@ -132,13 +856,44 @@ public abstract class AbstractDirigent<MessageT> implements Dirigent<MessageT>
         return MacroResolutionResult.NONE_APPLICABLE;
     }
 
+    /**
+     * Returns the formatters of the given macro name in the order they are tried by
+     * {@link #findFormatter(String, Object)}. The list reflects formatters registered for the name later on, unless no
+     * formatter was registered for it yet.
+     *
+     * @param name The name of the macro or {@code null} for the default formatter.
+     *
+     * @return the unmodifiable list of formatters, empty if there isn't any.
+     */
+    public List<Formatter<?>> getFormatters(String name)
+    {
+        if (name == null)
+        {
+            return defaultFormatter == null ? Collections.<Formatter<?>>emptyList()
+                                            : Collections.<Formatter<?>>singletonList(defaultFormatter);
+        }
+        List<Formatter<?>> list = this.formatters.get(name);
+        return list == null ? Collections.<Formatter<?>>emptyList() : Collections.unmodifiableList(list);
+    }
+
     @Override
     public Dirigent<MessageT> addPostProcessor(PostProcessor postProcessor)
     {
         postProcessors.add(postProcessor);
+        invalidateOutputCache();
         return this;
     }
 
+    /**
+     * Returns whether any global {@link PostProcessor} is attached.
+     *
+     * @return whether there are post processors.
+     */
+    public boolean hasPostProcessors()
+    {
+        return !postProcessors.isEmpty();
+    }
+
     @Override
     public Dirigent<MessageT> registerFormatter(Formatter<?> formatter)
     {
@@ -147,99 +902,113 @@ public abstract class AbstractDirigent<MessageT> implements Dirigent<MessageT>
             List<Formatter<?>> list = this.formatters.get(name);
             if (list == null)
             {
-                list = new ArrayList<Formatter<?>>();
-                formatters.put(name, list);
+                List<Formatter<?>> created = new CopyOnWriteArrayList<Formatter<?>>();
+                list = formatters.putIfAbsent(name, created);
+                if (list == null)
+                {
+                    list = created;
+                }
             }
             list.add(formatter);
         }
+        invalidateOutputCache();
         return this;
     }
 
+    /**
+     * Invalidates the output cache, if there is one, as the cached messages might change.
+     */
+    private void invalidateOutputCache()
+    {
+        final OutputCache<MessageT> cache = this.outputCache;
+        if (cache != null)
+        {
+            cache.invalidate();
+        }
+    }
+
     /**
      * Iterates through the provided {@link Element}s and converts them to {@link Component}s. Therefore the method uses
      * the registered {@link Formatter} and runs global {@link PostProcessor}s.
      *
+     * @param source The source of the message.
+     * @param elements The parsed elements.
+     * @param context The compose context.
+     * @param inputs The message input parameters.
+     *
+     * @return A {@link ComponentGroup} holding all the {@link Component}s representing the input {@link Element}s.
+     */
+    private ComponentGroup resolve(String source, List<Element> elements, Context context, Object[] inputs)
+    {
+        return resolve(source, elements, context, inputs, null, null);
+    }
+
+    /**
+     * Iterates through the provided {@link Element}s and converts them to {@link Component}s. Macros handled by a
+     * {@link Formatter#isBlocking() blocking} formatter are resolved to {@link DeferredMacro}s and collected in the
+     * given list, if there is one.
+     *
+     * @param source The source of the message.
      * @param elements The parsed elements.
      * @param context The compose context.
      * @param inputs The message input parameters.
+     * @param deferred The list collecting the deferred macros or {@code null}.
+     * @param arena The arena providing the intermediate components or {@code null} to create new ones.
      *
      * @return A {@link ComponentGroup} holding all the {@link Component}s representing the input {@link Element}s.
      */
-    @SuppressWarnings("unchecked")
-    private ComponentGroup resolve(List<Element> elements, Context context, Object[] inputs)
+    private ComponentGroup resolve(String source, List<Element> elements, Context context, Object[] inputs,
+                                   List<DeferredMacro> deferred, ComponentArena arena)
     {
         if (elements.isEmpty())
         {
             return ComponentGroup.EMPTY;
         }
 
-        List<Component> list = new ArrayList<Component>();
-        int implicitArgCounter = 0;
-
-        for (Element element : elements)
+        final DirigentMetrics metrics = this.metrics;
+        final boolean timing = metrics.isTiming();
+        final long start = timing ? System.nanoTime() : 0;
+        final int size = elements.size();
+        final ComponentGroup group;
+        if (arena == null)
         {
-            Component out;
-            Arguments arguments = Arguments.NONE;
-            if (element instanceof TextComponent)
+            Component[] components = new Component[size];
+            Resolver resolver = new Resolver();
+            resolver.reset(source, inputs, deferred, null, metrics);
+            for (int i = 0; i < size; i++)
             {
-                out = (Component)element;
+                elements.get(i).accept(resolver, components, context);
             }
-            else if (element instanceof Macro)
+            group = new ComponentGroup(components);
+        }
+        else
+        {
+            Component[] components = arena.slots(size);
+            // arenas are never shared between dirigents, so a pooled resolver belongs to this dirigent
+            final ElementVisitor<Component[], Context> pooled = arena.getResolver();
+            final Resolver resolver;
+            if (pooled instanceof AbstractDirigent.Resolver)
             {
-                Macro macro = (Macro)element;
-
-                int argIndex;
-                boolean explicitIndex;
-                if (macro instanceof Indexed)
-                {
-                    argIndex = ((Indexed)element).getIndex();
-                    explicitIndex = true;
-                }
-                else
-                {
-                    argIndex = implicitArgCounter;
-                    explicitIndex = false;
-                }
-
-                // Default macros will not have a name
-                String name = null;
-                if (macro instanceof NamedMacro)
-                {
-                    NamedMacro named = (NamedMacro)macro;
-                    name = named.getName();
-                    arguments = named.getArgs();
-                }
-
-                // may be null because it might be a constant macro
-                Object input = argIndex < inputs.length ? inputs[argIndex] : null;
-                MacroResolutionResult res = this.findFormatter(name, input);
-                Formatter formatter = res.getFormatter();
-                boolean isConstant = formatter instanceof ConstantFormatter;
-
-                if (res.isOK())
-                {
-                    out = new ResolvedMacro((Formatter<Object>)formatter, isConstant ? null : input, arguments);
-                }
-                else
-                {
-                    out = new UnresolvableMacro(macro, input, res.getState());
-                }
-
-                if (!explicitIndex && !isConstant)
-                {
-                    implicitArgCounter++;
-                }
+                resolver = (Resolver)pooled;
             }
             else
             {
-                throw new IllegalStateException(
-                    "The message contains Tokens that are not Text or Macro: " + element.getClass().getName());
+                resolver = new Resolver();
+                arena.setResolver(resolver);
             }
-
-            list.add(applyPostProcessors(out, context, arguments));
+            resolver.reset(source, inputs, deferred, arena, metrics);
+            for (int i = 0; i < size; i++)
+            {
+                elements.get(i).accept(resolver, components, context);
+            }
+            resolver.reset(null, null, null, null, DirigentMetrics.NONE);
+            group = arena.group(components, size);
         }
-
-        return new ComponentGroup(list);
+        if (timing)
+        {
+            metrics.phase(Phase.RESOLVE, System.nanoTime() - start);
+        }
+        return group;
     }
 
     /**
@@ -248,11 +1017,18 @@ public abstract class AbstractDirigent<MessageT> implements Dirigent<MessageT>
      * @param in The component to process.
      * @param context The compose context.
      * @param args The macro arguments.
+     * @param metrics The metrics listener.
      *
      * @return The processed component.
      */
-    private Component applyPostProcessors(Component in, Context context, Arguments args)
+    private Component applyPostProcessors(Component in, Context context, Arguments args, DirigentMetrics metrics)
     {
+        if (postProcessors.isEmpty())
+        {
+            return in;
+        }
+        final boolean timing = metrics.isTiming();
+        final long start = timing ? System.nanoTime() : 0;
         Component out = in;
 
         for (final PostProcessor postProcessor : postProcessors)
@@ -260,6 +1036,194 @@ public abstract class AbstractDirigent<MessageT> implements Dirigent<MessageT>
             out = postProcessor.process(out, context, args);
         }
 
+        if (timing)
+        {
+            metrics.phase(Phase.POST_PROCESS, System.nanoTime() - start);
+        }
         return out;
     }
+
+    /**
+     * Converts the visited {@link Element}s to {@link Component}s and stores them one after another in the given array.
+     * A resolver is reset for every message, so a pooled resolver can be reused by a {@link ComponentArena}.
+     */
+    private final class Resolver implements ElementVisitor<Component[], Context>
+    {
+        /**
+         * The source of the message.
+         */
+        private String source;
+        /**
+         * The message input parameters.
+         */
+        private Object[] inputs;
+        /**
+         * The list collecting the deferred macros or {@code null}.
+         */
+        private List<DeferredMacro> deferred;
+        /**
+         * The arena providing the intermediate components or {@code null}.
+         */
+        private ComponentArena arena;
+        /**
+         * The metrics listener.
+         */
+        private DirigentMetrics metrics;
+        /**
+         * The index of the input parameter of the next macro without explicit index.
+         */
+        private int implicitArgCounter = 0;
+        /**
+         * The position of the next component in the array.
+         */
+        private int position = 0;
+
+        /**
+         * Prepares this resolver for the next message.
+         *
+         * @param source The source of the message.
+         * @param inputs The message input parameters.
+         * @param deferred The list collecting the deferred macros or {@code null}.
+         * @param arena The arena providing the intermediate components or {@code null}.
+         * @param metrics The metrics listener.
+         */
+        private void reset(String source, Object[] inputs, List<DeferredMacro> deferred, ComponentArena arena,
+                           DirigentMetrics metrics)
+        {
+            this.source = source;
+            this.inputs = inputs;
+            this.deferred = deferred;
+            this.arena = arena;
+            this.metrics = metrics;
+            this.implicitArgCounter = 0;
+            this.position = 0;
+        }
+
+        @Override
+        public void visitText(Text element, Component[] out, Context context)
+        {
+            out[position++] = applyPostProcessors(element, context, Arguments.NONE, metrics);
+        }
+
+        @Override
+        public void visitDefaultMacro(DefaultMacro element, Component[] out, Context context)
+        {
+            out[position++] = resolveMacro(element, null, Arguments.NONE, implicitArgCounter, false, context);
+        }
+
+        @Override
+        public void visitIndexedDefaultMacro(IndexedDefaultMacro element, Component[] out, Context context)
+        {
+            out[position++] = resolveMacro(element, null, Arguments.NONE, element.getIndex(), true, context);
+        }
+
+        @Override
+        public void visitNamedMacro(NamedMacro element, Component[] out, Context context)
+        {
+            out[position++] = resolveMacro(element, element.getName(), element.getArgs(), implicitArgCounter, false,
+                                           context);
+        }
+
+        @Override
+        public void visitCompleteMacro(CompleteMacro element, Component[] out, Context context)
+        {
+            out[position++] = resolveMacro(element, element.getName(), element.getArgs(), element.getIndex(), true,
+                                           context);
+        }
+
+        /**
+         * Resolves the formatter of a macro and runs the global {@link PostProcessor}s.
+         *
+         * @param macro The macro.
+         * @param name The name of the macro or {@code null} for default macros.
+         * @param arguments The macro arguments.
+         * @param argIndex The index of the input parameter.
+         * @param explicitIndex Whether the index is specified by the macro.
+         * @param context The compose context.
+         *
+         * @return the resolved component.
+         */
+        @SuppressWarnings("unchecked")
+        private Component resolveMacro(Macro macro, String name, Arguments arguments, int argIndex,
+                                       boolean explicitIndex, Context context)
+        {
+            // may be null because it might be a constant macro
+            Object input = argIndex < inputs.length ? inputs[argIndex] : null;
+            MacroResolutionResult res = findFormatter(name, input);
+            Formatter formatter = res.getFormatter();
+            boolean isConstant = formatter instanceof ConstantFormatter;
+
+            Component out;
+            if (res.isOK() && deferred != null && formatter.isBlocking())
+            {
+                DeferredMacro deferredMacro = new DeferredMacro((Formatter<Object>)formatter,
+                                                                isConstant ? null : input, arguments);
+                deferred.add(deferredMacro);
+                out = deferredMacro;
+            }
+            else if (res.isOK() && arena != null)
+            {
+                out = arena.resolved((Formatter<Object>)formatter, isConstant ? null : input, arguments);
+            }
+            else if (res.isOK())
+            {
+                out = new ResolvedMacro((Formatter<Object>)formatter, isConstant ? null : input, arguments);
+            }
+            else
+            {
+                UnresolvableMacro unresolvable = new UnresolvableMacro(macro, input, res.getState());
+                final UnresolvedMacroListener listener = unresolvedListener;
+                if (listener != null)
+                {
+                    listener.unresolved(source, unresolvable);
+                }
+                out = unresolvable;
+            }
+
+            if (!explicitIndex && !isConstant)
+            {
+                implicitArgCounter++;
+            }
+            return applyPostProcessors(out, context, arguments, metrics);
+        }
+    }
+
+    /**
+     * The pooled compose state of a thread.
+     *
+     * @param <MessageT> The message type.
+     */
+    private static final class Pool<MessageT>
+    {
+        /**
+         * The arena of the intermediate components.
+         */
+        private final ComponentArena arena = new ComponentArena();
+        /**
+         * The context of the reused composer.
+         */
+        private Context context;
+        /**
+         * The reused composer.
+         */
+        private Composer<MessageT> composer;
+    }
+
+    /**
+     * Composes several messages with the same context into their final form. A composer is confined to a single
+     * thread.
+     *
+     * @param <MessageT> the message type
+     */
+    protected interface Composer<MessageT>
+    {
+        /**
+         * Composes the parsed {@link ComponentGroup} into the final form.
+         *
+         * @param componentGroup A component group holding the entire message components.
+         *
+         * @return the composed message.
+         */
+        MessageT compose(ComponentGroup componentGroup);
+    }
 }
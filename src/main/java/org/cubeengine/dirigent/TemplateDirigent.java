@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.formatter.Formatter;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.component.ComponentGroup;
+
+/**
+ * Extends the {@link Dirigent} interface by compiled {@link Template}s and the methods composing them. It is a separate
+ * interface, so existing implementations of {@link Dirigent} don't break. {@link AbstractDirigent} implements it.
+ *
+ * @param <MessageT> the resulting MessageType
+ */
+public interface TemplateDirigent<MessageT> extends Dirigent<MessageT>
+{
+    /**
+     * Compiles the source message to a {@link Template} which can be composed repeatedly without parsing the message
+     * again.
+     *
+     * @param source The source message.
+     *
+     * @return the compiled template.
+     */
+    Template compile(String source);
+
+    /**
+     * Compiles an already parsed {@link Template}, e.g. one decoded from a
+     * {@link org.cubeengine.dirigent.catalog.MappedTemplateStore}, the same way as {@link #compile(String)} without
+     * parsing the message again.
+     *
+     * @param parsed The parsed message.
+     *
+     * @return the compiled template.
+     */
+    Template compile(Template parsed);
+
+    /**
+     * Composes a message from a compiled {@link Template}.
+     *
+     * @param context The compose context.
+     * @param template The compiled message.
+     * @param inputs The message parameters.
+     *
+     * @return the composed message.
+     */
+    MessageT compose(Context context, Template template, Object... inputs);
+
+    /**
+     * Composes a message for several contexts, e.g. the contexts of all recipients of a broadcast. The message is only
+     * composed once per distinct context, so equal contexts share the same message.
+     *
+     * @param template The compiled message.
+     * @param contexts The compose contexts.
+     * @param inputs The message parameters.
+     *
+     * @return the composed messages mapped by their context.
+     */
+    Map<Context, MessageT> composeForAll(Template template, Collection<? extends Context> contexts, Object... inputs);
+
+    /**
+     * Composes a message for every row of input parameters and passes them to the sink in the order of the rows. This
+     * is more efficient than composing every message separately, as resources like builders are reused for all rows.
+     *
+     * @param context The compose context.
+     * @param template The compiled message.
+     * @param rows The message parameters of every message.
+     * @param sink The sink receiving the composed messages.
+     */
+    void composeAll(Context context, Template template, Iterable<Object[]> rows, MessageSink<? super MessageT> sink);
+
+    /**
+     * Composes a message for every row of input parameters in parallel and passes them to the sink in the order of the
+     * rows. The rows are split into chunks which are composed by tasks running on the given executor, e.g. a
+     * {@link java.util.concurrent.ForkJoinPool} or an executor using virtual threads. The sink is only called from the
+     * calling thread, which blocks until all messages were passed to the sink.
+     *
+     * @param context The compose context.
+     * @param template The compiled message.
+     * @param rows The message parameters of every message.
+     * @param sink The sink receiving the composed messages.
+     * @param executor The executor running the compose tasks.
+     */
+    void composeAll(Context context, Template template, List<Object[]> rows, MessageSink<? super MessageT> sink,
+                    Executor executor);
+
+    /**
+     * Composes a message asynchronously. The macros of {@link Formatter#isBlocking() blocking} formatters are formatted
+     * concurrently by tasks running on the given executor, e.g. an executor using virtual threads. Once all of them are
+     * done, the message is composed by the task finishing last. The calling thread never blocks.
+     *
+     * @param executor The executor running the format and compose tasks.
+     * @param context The compose context.
+     * @param template The compiled message.
+     * @param inputs The message parameters.
+     *
+     * @return the future of the composed message.
+     */
+    Future<MessageT> composeAsync(Executor executor, Context context, Template template, Object... inputs);
+
+    /**
+     * Resolves the macros of a nested message, e.g. a text of a formatter selecting one of several texts, with the
+     * registered formatters. A formatter can return the resulting group as its component, which is then built into the
+     * enclosing message like its other components.
+     *
+     * @param context The compose context.
+     * @param template The nested message, e.g. from
+     * {@link org.cubeengine.dirigent.context.Arguments#getTemplate(String)}.
+     * @param inputs The message parameters of the nested message.
+     *
+     * @return the resolved components.
+     */
+    ComponentGroup resolve(Context context, Template template, Object... inputs);
+}
@@ -25,6 +25,7 @@ package org.cubeengine.dirigent.builder;
 import org.cubeengine.dirigent.AbstractDirigent;
 import org.cubeengine.dirigent.context.Context;
 import org.cubeengine.dirigent.formatter.Formatter;
+import org.cubeengine.dirigent.metrics.DirigentMetrics;
 import org.cubeengine.dirigent.parser.component.ComponentGroup;
 
 /**
@@ -62,6 +63,19 @@ public class BuilderDirigent<MessageT, BuilderT> extends AbstractDirigent<Messag
         this.mBuilder = mBuilder;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The formatter calls of the message builder are recorded as well.
+     */
+    @Override
+    public BuilderDirigent<MessageT, BuilderT> setMetrics(DirigentMetrics metrics)
+    {
+        super.setMetrics(metrics);
+        mBuilder.setMetrics(metrics);
+        return this;
+    }
+
     @Override
     protected MessageT compose(ComponentGroup componentGroup, Context context)
     {
@@ -69,4 +83,22 @@ public class BuilderDirigent<MessageT, BuilderT> extends AbstractDirigent<Messag
         mBuilder.buildGroup(componentGroup, builder, context);
         return mBuilder.finalize(builder, context);
     }
+
+    @Override
+    protected Composer<MessageT> newComposer(final Context context)
+    {
+        return new Composer<MessageT>()
+        {
+            private BuilderT builder = mBuilder.newBuilder();
+
+            @Override
+            public MessageT compose(ComponentGroup componentGroup)
+            {
+                mBuilder.buildGroup(componentGroup, builder, context);
+                MessageT message = mBuilder.finalize(builder, context);
+                builder = mBuilder.reset(builder);
+                return message;
+            }
+        };
+    }
 }
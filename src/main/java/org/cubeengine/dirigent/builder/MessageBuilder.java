@@ -24,11 +24,15 @@ package org.cubeengine.dirigent.builder;
 
 import org.cubeengine.dirigent.parser.component.Component;
 import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.metrics.DirigentMetrics;
 import org.cubeengine.dirigent.parser.Text;
 import org.cubeengine.dirigent.parser.component.ComponentGroup;
+import org.cubeengine.dirigent.parser.component.ComponentVisitor;
+import org.cubeengine.dirigent.parser.component.DeferredMacro;
 import org.cubeengine.dirigent.parser.component.ResolvedMacro;
 import org.cubeengine.dirigent.parser.component.TextComponent;
 import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
+import org.cubeengine.dirigent.parser.component.VisitableComponent;
 
 /**
  * Uses a Builder to construct a message
@@ -38,6 +42,47 @@ import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
  */
 public abstract class MessageBuilder<MessageT, BuilderT>
 {
+    /**
+     * The visitor dispatching the components to the build methods.
+     */
+    private final ComponentVisitor<BuilderT, Context> dispatcher = new ComponentVisitor<BuilderT, Context>()
+    {
+        @Override
+        public void visitText(TextComponent component, BuilderT builder, Context context)
+        {
+            buildText(component, builder, context);
+        }
+
+        @Override
+        public void visitResolved(ResolvedMacro component, BuilderT builder, Context context)
+        {
+            buildResolved(component, builder, context);
+        }
+
+        @Override
+        public void visitUnresolvable(UnresolvableMacro component, BuilderT builder, Context context)
+        {
+            buildUnresolvable(component, builder, context);
+        }
+
+        @Override
+        public void visitGroup(ComponentGroup component, BuilderT builder, Context context)
+        {
+            buildGroup(component, builder, context);
+        }
+
+        @Override
+        public void visitOther(Component component, BuilderT builder, Context context)
+        {
+            buildOther(component, builder, context);
+        }
+    };
+
+    /**
+     * The listener of the formatter calls.
+     */
+    private volatile DirigentMetrics metrics = DirigentMetrics.NONE;
+
     /**
      * Constructs a new Builder
      *
@@ -45,6 +90,19 @@ public abstract class MessageBuilder<MessageT, BuilderT>
      */
     public abstract BuilderT newBuilder();
 
+    /**
+     * Prepares a builder which was already used for building a message, so it can be used for the next message. By
+     * default a new builder is created.
+     *
+     * @param builder the used builder
+     *
+     * @return the builder to use for the next message
+     */
+    public BuilderT reset(BuilderT builder)
+    {
+        return newBuilder();
+    }
+
     /**
      * Returns the built message
      *
@@ -64,14 +122,16 @@ public abstract class MessageBuilder<MessageT, BuilderT>
      */
     public void buildGroup(ComponentGroup group, BuilderT builder, Context context)
     {
-        for (Component component : group.getComponents())
+        for (int i = 0, size = group.size(); i < size; ++i)
         {
-            buildAny(component, builder, context);
+            buildAny(group.get(i), builder, context);
         }
     }
 
     /**
-     * Appends a Component to the builder
+     * Appends a Component to the builder. Components implementing {@link VisitableComponent} dispatch themselves to the
+     * matching build method, other components are checked for being a {@link TextComponent} and otherwise handled by
+     * {@link #buildOther(Component, Object, Context)}.
      *
      * @param component the component
      * @param builder the builder
@@ -79,22 +139,14 @@ public abstract class MessageBuilder<MessageT, BuilderT>
      */
     protected final void buildAny(Component component, BuilderT builder, Context context)
     {
-        if (component instanceof ResolvedMacro)
-        {
-            buildResolved((ResolvedMacro)component, builder, context);
-        }
-        else if (component instanceof UnresolvableMacro)
+        if (component instanceof VisitableComponent)
         {
-            buildUnresolvable((UnresolvableMacro)component, builder, context);
+            ((VisitableComponent)component).accept(dispatcher, builder, context);
         }
         else if (component instanceof TextComponent)
         {
             buildText((TextComponent)component, builder, context);
         }
-        else if (component instanceof ComponentGroup)
-        {
-            buildGroup((ComponentGroup)component, builder, context);
-        }
         else
         {
             buildOther(component, builder, context);
@@ -111,7 +163,9 @@ public abstract class MessageBuilder<MessageT, BuilderT>
     protected abstract void buildText(TextComponent component, BuilderT builder, Context context);
 
     /**
-     * Appends a {@link ResolvedMacro} Component to the builder
+     * Appends a {@link ResolvedMacro} Component to the builder. A {@link DeferredMacro} which was already formatted
+     * isn't formatted again. Otherwise the macro is built directly if possible, see
+     * {@link #buildDirect(ResolvedMacro, Object, Context)}.
      *
      * @param c the found formatter
      * @param builder the builder
@@ -119,10 +173,72 @@ public abstract class MessageBuilder<MessageT, BuilderT>
      */
     protected final void buildResolved(ResolvedMacro c, BuilderT builder, Context context)
     {
-        Component processed = c.getFormatter().process(c.getInput(), context, c.getArguments());
+        Component processed = null;
+        if (c instanceof DeferredMacro)
+        {
+            processed = ((DeferredMacro)c).getResult();
+        }
+        if (processed == null)
+        {
+            final DirigentMetrics metrics = this.metrics;
+            if (metrics == DirigentMetrics.NONE)
+            {
+                if (!buildDirect(c, builder, context))
+                {
+                    buildAny(c.getFormatter().process(c.getInput(), context, c.getArguments()), builder, context);
+                }
+                return;
+            }
+            final Object trace = metrics.beginFormat();
+            final boolean timing = metrics.isTiming();
+            final long start = timing ? System.nanoTime() : 0;
+            final boolean direct = buildDirect(c, builder, context);
+            if (!direct)
+            {
+                processed = c.getFormatter().process(c.getInput(), context, c.getArguments());
+            }
+            if (timing)
+            {
+                metrics.formatted(c.getFormatter(), c.getInput(), System.nanoTime() - start);
+            }
+            if (trace != null)
+            {
+                metrics.endFormat(trace, c.getFormatter(), c.getInput());
+            }
+            if (direct)
+            {
+                return;
+            }
+        }
         buildAny(processed, builder, context);
     }
 
+    /**
+     * Tries to append a {@link ResolvedMacro} to the builder without creating the intermediate {@link Component}s, e.g.
+     * using {@link org.cubeengine.dirigent.formatter.Formatter#processTo(Object, Context,
+     * org.cubeengine.dirigent.context.Arguments, StringBuilder)}. By default this isn't supported.
+     *
+     * @param c the found formatter
+     * @param builder the builder
+     * @param context the context
+     *
+     * @return whether the macro was appended.
+     */
+    protected boolean buildDirect(ResolvedMacro c, BuilderT builder, Context context)
+    {
+        return false;
+    }
+
+    /**
+     * Sets the listener of the formatter calls.
+     *
+     * @param metrics The metrics listener or {@code null} to disable the metrics.
+     */
+    public void setMetrics(DirigentMetrics metrics)
+    {
+        this.metrics = metrics == null ? DirigentMetrics.NONE : metrics;
+    }
+
     /**
      * Handles a {@link UnresolvableMacro}
      *
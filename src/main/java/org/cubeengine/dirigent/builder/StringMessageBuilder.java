@@ -24,6 +24,7 @@ package org.cubeengine.dirigent.builder;
 
 import org.cubeengine.dirigent.parser.component.Component;
 import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.parser.component.ResolvedMacro;
 import org.cubeengine.dirigent.parser.component.TextComponent;
 import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
 import org.cubeengine.dirigent.parser.element.Macro;
@@ -40,12 +41,25 @@ public class StringMessageBuilder extends MessageBuilder<String, StringBuilder>
         builder.append(component.getText());
     }
 
+    @Override
+    protected boolean buildDirect(ResolvedMacro c, StringBuilder builder, Context context)
+    {
+        return c.getFormatter().processTo(c.getInput(), context, c.getArguments(), builder);
+    }
+
     @Override
     public StringBuilder newBuilder()
     {
         return new StringBuilder();
     }
 
+    @Override
+    public StringBuilder reset(StringBuilder builder)
+    {
+        builder.setLength(0);
+        return builder;
+    }
+
     @Override
     public String finalize(StringBuilder stringBuilder, Context context)
     {
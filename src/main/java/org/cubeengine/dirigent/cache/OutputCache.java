@@ -0,0 +1,475 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.cache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.parser.Template;
+
+/**
+ * A bounded cache of composed messages. The messages are identified by the identity of their {@link Template}, their
+ * {@link Context} and the values of their input parameters. Only messages having input parameters of known immutable
+ * types are cached, see {@link #isCacheable(Object[])}. The least recently used messages are evicted once the
+ * maximum weight of the cache is exceeded. By default every message has a weight of 1, so the maximum weight is the
+ * maximum number of messages.
+ *
+ * The cache must only be used if all involved formatters and post processors produce the same output for the same
+ * input. Furthermore the cached messages are shared, so the message type must not be mutable. The cache is thread
+ * safe. Larger caches are split into up to {@link #MAX_SEGMENTS} segments by the hash of the messages, each guarded by
+ * its own lock and evicting its own least recently used messages, so threads composing different messages rarely
+ * wait for each other. The eviction order is therefore only approximately least recently used.
+ *
+ * @param <MessageT> the message type
+ */
+public class OutputCache<MessageT>
+{
+    /**
+     * The maximum number of segments.
+     */
+    public static final int MAX_SEGMENTS = 16;
+    /**
+     * The minimum maximum weight of a segment, so small caches keep a single segment with an exact eviction order.
+     */
+    private static final long MIN_SEGMENT_WEIGHT = 64;
+
+    /**
+     * The weigher calculating the weight of a message.
+     */
+    private final Weigher<? super MessageT> weigher;
+    /**
+     * The segments, their number is a power of two.
+     */
+    private final Segment<MessageT>[] segments;
+    /**
+     * The generation of the cached messages, incremented by {@link #invalidate()}.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs a cache holding at most the given number of messages.
+     *
+     * @param maximumSize The maximum number of messages.
+     */
+    public OutputCache(int maximumSize)
+    {
+        this(maximumSize, new Weigher<Object>()
+        {
+            @Override
+            public int weigh(Object message)
+            {
+                return 1;
+            }
+        });
+    }
+
+    /**
+     * Constructs a cache holding messages up to the given weight.
+     *
+     * @param maximumWeight The maximum weight of all cached messages.
+     * @param weigher The weigher calculating the weight of a single message.
+     */
+    public OutputCache(long maximumWeight, Weigher<? super MessageT> weigher)
+    {
+        if (maximumWeight < 0)
+        {
+            throw new IllegalArgumentException("The maximum weight may not be negative!");
+        }
+        this.weigher = weigher;
+
+        int count = 1;
+        while (count < MAX_SEGMENTS && maximumWeight / (count * 2) >= MIN_SEGMENT_WEIGHT)
+        {
+            count *= 2;
+        }
+        @SuppressWarnings("unchecked")
+        final Segment<MessageT>[] segments = new Segment[count];
+        for (int i = 0; i < count; i++)
+        {
+            segments[i] = new Segment<MessageT>(maximumWeight / count + (i < maximumWeight % count ? 1 : 0));
+        }
+        this.segments = segments;
+    }
+
+    /**
+     * Returns the segment of a key.
+     *
+     * @param key The key.
+     *
+     * @return the segment.
+     */
+    private Segment<MessageT> segmentOf(Key key)
+    {
+        final int hash = key.hash ^ (key.hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * Returns the cached message or {@code null} if it isn't cached.
+     *
+     * @param template The template of the message.
+     * @param context The compose context.
+     * @param inputs The message input parameters.
+     *
+     * @return the cached message or null.
+     */
+    public MessageT get(Template template, Context context, Object[] inputs)
+    {
+        final Key key = new Key(template, context, inputs);
+        final Segment<MessageT> segment = segmentOf(key);
+        final CachedMessage<MessageT> entry;
+        synchronized (segment)
+        {
+            entry = segment.messages.get(key);
+        }
+        if (entry == null)
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.message;
+    }
+
+    /**
+     * Caches the message. The input parameters are copied.
+     *
+     * @param template The template of the message.
+     * @param context The compose context.
+     * @param inputs The message input parameters.
+     * @param message The composed message.
+     */
+    public void put(Template template, Context context, Object[] inputs, MessageT message)
+    {
+        put(template, context, inputs, message, generation.get());
+    }
+
+    /**
+     * Caches the message unless the cache was invalidated since the given generation, e.g. while the message was
+     * composed. The input parameters are copied.
+     *
+     * @param template The template of the message.
+     * @param context The compose context.
+     * @param inputs The message input parameters.
+     * @param message The composed message.
+     * @param generation The generation returned by {@link #getGeneration()} before composing the message.
+     */
+    public void put(Template template, Context context, Object[] inputs, MessageT message, long generation)
+    {
+        final Key key = new Key(template, context, inputs.clone());
+        final Segment<MessageT> segment = segmentOf(key);
+        final int messageWeight = weigher.weigh(message);
+        if (messageWeight > segment.maximumWeight)
+        {
+            return;
+        }
+        synchronized (segment)
+        {
+            if (generation != this.generation.get())
+            {
+                return;
+            }
+            final CachedMessage<MessageT> old = segment.messages.put(key, new CachedMessage<MessageT>(message,
+                                                                                                      messageWeight));
+            if (old != null)
+            {
+                segment.weight -= old.weight;
+            }
+            segment.weight += messageWeight;
+
+            final Iterator<Entry<Key, CachedMessage<MessageT>>> it = segment.messages.entrySet().iterator();
+            while (segment.weight > segment.maximumWeight && it.hasNext())
+            {
+                segment.weight -= it.next().getValue().weight;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the current generation of the cached messages.
+     *
+     * @return the generation.
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Removes all messages from the cache and discards the messages which are currently composed, e.g. because a
+     * formatter or post processor was registered and the messages might change. The statistics are kept.
+     */
+    public void invalidate()
+    {
+        generation.incrementAndGet();
+        clear();
+    }
+
+    /**
+     * Removes all messages from the cache. The statistics are kept.
+     */
+    public void clear()
+    {
+        for (Segment<MessageT> segment : segments)
+        {
+            synchronized (segment)
+            {
+                segment.messages.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached messages.
+     *
+     * @return the number of messages.
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Segment<MessageT> segment : segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.messages.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the current weight of all cached messages.
+     *
+     * @return the weight.
+     */
+    public long getWeight()
+    {
+        long weight = 0;
+        for (Segment<MessageT> segment : segments)
+        {
+            synchronized (segment)
+            {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the number of lookups which found a cached message.
+     *
+     * @return the number of hits.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups which didn't find a cached message.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of messages which were evicted from the cache.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the ratio of hits to all lookups.
+     *
+     * @return the hit rate or 0 if there wasn't any lookup yet.
+     */
+    public double getHitRate()
+    {
+        final long hits = getHits();
+        final long lookups = hits + getMisses();
+        if (lookups == 0)
+        {
+            return 0;
+        }
+        return (double)hits / lookups;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OutputCache{" + "size=" + size() + ", weight=" + getWeight() + ", hits=" + getHits() + ", misses="
+            + getMisses() + ", evictions=" + getEvictions() + '}';
+    }
+
+    /**
+     * Checks whether messages with the given input parameters can be cached. This is the case if every parameter is
+     * {@code null} or an instance of a known immutable type: {@link String}, the boxed primitive types or an
+     * {@link Enum}.
+     *
+     * @param inputs The message input parameters.
+     *
+     * @return whether the message can be cached.
+     */
+    public static boolean isCacheable(Object[] inputs)
+    {
+        for (final Object input : inputs)
+        {
+            if (input != null && !isImmutable(input))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isImmutable(Object input)
+    {
+        final Class<?> clazz = input.getClass();
+        return clazz == String.class || clazz == Integer.class || clazz == Long.class || clazz == Double.class
+            || clazz == Boolean.class || clazz == Float.class || clazz == Short.class || clazz == Byte.class
+            || clazz == Character.class || input instanceof Enum;
+    }
+
+    /**
+     * Calculates the weight of a message.
+     *
+     * @param <MessageT> the message type
+     */
+    public interface Weigher<MessageT>
+    {
+        /**
+         * Calculates the weight of the given message.
+         *
+         * @param message The message.
+         *
+         * @return the weight, must not be negative.
+         */
+        int weigh(MessageT message);
+    }
+
+    /**
+     * The key of a cached message.
+     */
+    private static final class Key
+    {
+        private final Template template;
+        private final Context context;
+        private final Object[] inputs;
+        private final int hash;
+
+        Key(Template template, Context context, Object[] inputs)
+        {
+            this.template = template;
+            this.context = context;
+            this.inputs = inputs;
+
+            int hash = System.identityHashCode(template);
+            hash = 31 * hash + context.hashCode();
+            hash = 31 * hash + Arrays.hashCode(inputs);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            final Key key = (Key)o;
+
+            return template == key.template && hash == key.hash && context.equals(key.context) && Arrays.equals(
+                inputs, key.inputs);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    /**
+     * A part of the cache guarded by its own lock.
+     *
+     * @param <MessageT> the message type
+     */
+    private static final class Segment<MessageT>
+    {
+        /**
+         * The maximum weight of the messages of this segment.
+         */
+        private final long maximumWeight;
+        /**
+         * The cached messages in access order.
+         */
+        private final LinkedHashMap<Key, CachedMessage<MessageT>> messages =
+            new LinkedHashMap<Key, CachedMessage<MessageT>>(16, 0.75f, true);
+        /**
+         * The current weight of the messages of this segment.
+         */
+        private long weight = 0;
+
+        Segment(long maximumWeight)
+        {
+            this.maximumWeight = maximumWeight;
+        }
+    }
+
+    /**
+     * A cached message and its weight.
+     */
+    private static final class CachedMessage<MessageT>
+    {
+        private final MessageT message;
+        private final int weight;
+
+        CachedMessage(MessageT message, int weight)
+        {
+            this.message = message;
+            this.weight = weight;
+        }
+    }
+}
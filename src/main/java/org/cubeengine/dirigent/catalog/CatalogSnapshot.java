@@ -0,0 +1,184 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.cubeengine.dirigent.parser.Template;
+
+/**
+ * An immutable state of a {@link MessageCatalog}, holding the compiled templates by key per locale. The result of
+ * walking the fallback chain of a locale is cached per key and locale by a {@link FallbackCache}, including keys without
+ * any template, so repeated lookups are a single map access. A reload replaces the snapshot and thereby the cached
+ * results.
+ */
+public final class CatalogSnapshot implements TemplateStore
+{
+    /**
+     * The snapshot without any messages.
+     */
+    public static final CatalogSnapshot EMPTY =
+        new CatalogSnapshot(Collections.<Locale, Map<String, Template>>emptyMap());
+
+    /**
+     * The templates by key per locale.
+     */
+    private final Map<Locale, Map<String, Template>> templates;
+
+    /**
+     * The cached lookup results of the fallback chains.
+     */
+    private final FallbackCache<Template> resolutions = new FallbackCache<Template>()
+    {
+        @Override
+        protected Template lookup(String key, Locale locale)
+        {
+            return getExact(key, locale);
+        }
+
+        @Override
+        protected boolean hasValues(Locale locale)
+        {
+            return templates.containsKey(locale);
+        }
+    };
+
+    /**
+     * Constructor.
+     *
+     * @param templates The templates by key per locale. The maps must not be modified afterwards.
+     */
+    CatalogSnapshot(Map<Locale, Map<String, Template>> templates)
+    {
+        this.templates = templates;
+    }
+
+    @Override
+    public Template get(String key, Locale locale)
+    {
+        return resolutions.get(key, locale);
+    }
+
+    /**
+     * Returns the number of keys whose lookup result is cached for the given requested locale.
+     *
+     * @param locale The requested locale.
+     *
+     * @return the number of cached results.
+     */
+    int getResolvedCount(Locale locale)
+    {
+        return resolutions.getResolvedCount(locale);
+    }
+
+    @Override
+    public Template getExact(String key, Locale locale)
+    {
+        Map<String, Template> localeTemplates = templates.get(locale);
+        return localeTemplates == null ? null : localeTemplates.get(key);
+    }
+
+    /**
+     * Returns the locales having messages.
+     *
+     * @return the locales.
+     */
+    public Set<Locale> getLocales()
+    {
+        return Collections.unmodifiableSet(templates.keySet());
+    }
+
+    /**
+     * Returns the templates of exactly the given locale.
+     *
+     * @param locale The locale.
+     *
+     * @return the templates by key.
+     */
+    public Map<String, Template> getTemplates(Locale locale)
+    {
+        Map<String, Template> localeTemplates = templates.get(locale);
+        if (localeTemplates == null)
+        {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(localeTemplates);
+    }
+
+    /**
+     * Returns the number of templates of all locales.
+     *
+     * @return the number of templates.
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Map<String, Template> localeTemplates : templates.values())
+        {
+            size += localeTemplates.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the fallback chain of a locale: the locale itself, the locale without variant, the language and finally
+     * {@link Locale#ROOT}, e.g. {@code de_AT}, {@code de}, root.
+     *
+     * @param locale The locale.
+     *
+     * @return the locales to look up one after another.
+     */
+    public static List<Locale> fallbacks(Locale locale)
+    {
+        List<Locale> chain = new ArrayList<Locale>(4);
+        chain.add(locale);
+        if (locale.getVariant().length() > 0)
+        {
+            addDistinct(chain, new Locale(locale.getLanguage(), locale.getCountry()));
+        }
+        if (locale.getCountry().length() > 0)
+        {
+            addDistinct(chain, new Locale(locale.getLanguage()));
+        }
+        addDistinct(chain, Locale.ROOT);
+        return chain;
+    }
+
+    /**
+     * Adds a locale to the chain unless it is the last one.
+     *
+     * @param chain The fallback chain.
+     * @param locale The locale.
+     */
+    private static void addDistinct(List<Locale> chain, Locale locale)
+    {
+        if (!chain.get(chain.size() - 1).equals(locale))
+        {
+            chain.add(locale);
+        }
+    }
+}
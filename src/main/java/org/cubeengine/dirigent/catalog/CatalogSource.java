@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Provides the source messages of a {@link MessageCatalog}.
+ */
+public interface CatalogSource
+{
+    /**
+     * Loads all source messages.
+     *
+     * @return the source messages by key per locale. The messages of the fallback locale are stored for
+     * {@link Locale#ROOT}.
+     *
+     * @throws IOException if the messages can't be loaded.
+     */
+    Map<Locale, Map<String, String>> load() throws IOException;
+
+    /**
+     * Returns a version of the source messages. The version must change whenever the messages are changed, so it is
+     * polled to detect changes. It should be much cheaper to get than loading the messages.
+     *
+     * @return the version.
+     *
+     * @throws IOException if the version can't be determined.
+     */
+    long getVersion() throws IOException;
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Loads the source messages from the files of a directory. The files are named after a base name and the locale, e.g.
+ * {@code messages.properties} for the fallback messages, {@code messages_de.yml} and {@code messages_de_AT.yml}.
+ * Properties files are read as UTF-8. Files ending with {@code .yml} or {@code .yaml} are read as a simple subset of
+ * YAML, see {@link MessageFiles#readYaml(InputStream, String)}. If there are several files of the same locale, the
+ * messages are merged.
+ *
+ * The version is derived from the names, sizes and modification times of the files.
+ */
+public class DirectorySource implements CatalogSource
+{
+    /**
+     * The directory.
+     */
+    private final File directory;
+    /**
+     * The base name of the message files.
+     */
+    private final String baseName;
+
+    /**
+     * Constructor.
+     *
+     * @param directory The directory.
+     * @param baseName The base name of the message files.
+     */
+    public DirectorySource(File directory, String baseName)
+    {
+        this.directory = directory;
+        this.baseName = baseName;
+    }
+
+    @Override
+    public Map<Locale, Map<String, String>> load() throws IOException
+    {
+        Map<Locale, Map<String, String>> messages = new HashMap<Locale, Map<String, String>>();
+        for (File file : listFiles())
+        {
+            Locale locale = localeOf(file.getName());
+            Map<String, String> localeMessages = messages.get(locale);
+            if (localeMessages == null)
+            {
+                localeMessages = new HashMap<String, String>();
+                messages.put(locale, localeMessages);
+            }
+
+            InputStream in = new FileInputStream(file);
+            try
+            {
+                if (file.getName().endsWith(".properties"))
+                {
+                    localeMessages.putAll(MessageFiles.readProperties(in));
+                }
+                else
+                {
+                    localeMessages.putAll(MessageFiles.readYaml(in, file.getPath()));
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public long getVersion() throws IOException
+    {
+        long version = 17;
+        for (File file : listFiles())
+        {
+            version = 31 * version + file.getName().hashCode();
+            version = 31 * version + file.length();
+            version = 31 * version + file.lastModified();
+        }
+        return version;
+    }
+
+    /**
+     * Lists the message files of the directory.
+     *
+     * @return the files sorted by name.
+     *
+     * @throws IOException if the directory can't be listed.
+     */
+    private File[] listFiles() throws IOException
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+        {
+            throw new IOException("Can't list the message files of " + directory);
+        }
+
+        int count = 0;
+        for (File file : files)
+        {
+            if (file.isFile() && isMessageFile(file.getName()))
+            {
+                files[count++] = file;
+            }
+        }
+        files = Arrays.copyOf(files, count);
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * Checks whether a file name matches the base name and has a supported extension.
+     *
+     * @param name The file name.
+     *
+     * @return whether it is a message file.
+     */
+    private boolean isMessageFile(String name)
+    {
+        if (!name.startsWith(baseName))
+        {
+            return false;
+        }
+        String rest = stripExtension(name);
+        return rest != null && (rest.length() == baseName.length() || rest.charAt(baseName.length()) == '_');
+    }
+
+    /**
+     * Determines the locale from the name of a message file.
+     *
+     * @param name The file name.
+     *
+     * @return the locale.
+     */
+    private Locale localeOf(String name)
+    {
+        String rest = stripExtension(name);
+        if (rest.length() == baseName.length())
+        {
+            return Locale.ROOT;
+        }
+        String[] parts = rest.substring(baseName.length() + 1).split("_", 3);
+        return new Locale(parts[0], parts.length > 1 ? parts[1] : "", parts.length > 2 ? parts[2] : "");
+    }
+
+    /**
+     * Removes a supported extension from a file name.
+     *
+     * @param name The file name.
+     *
+     * @return the name without extension or {@code null} if the extension isn't supported.
+     */
+    private static String stripExtension(String name)
+    {
+        for (String extension : new String[]{".properties", ".yml", ".yaml"})
+        {
+            if (name.endsWith(extension))
+            {
+                return name.substring(0, name.length() - extension.length());
+            }
+        }
+        return null;
+    }
+}
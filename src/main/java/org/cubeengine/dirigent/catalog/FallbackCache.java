@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the result of walking the fallback chain of a requested locale, see {@link CatalogSnapshot#fallbacks(Locale)},
+ * per key and locale. Keys without any value are cached as well, so repeated lookups are a single map access. The
+ * number of cached misses is bounded per requested locale, so unknown keys can't fill the memory.
+ *
+ * @param <V> the type of the looked up values
+ */
+abstract class FallbackCache<V>
+{
+    /**
+     * The maximum number of keys without value cached per requested locale. Further misses are looked up again.
+     */
+    static final int MAX_MISSING = 10000;
+
+    /**
+     * The cached result of a key without value in the fallback chain.
+     */
+    private static final Object MISSING = new Object();
+
+    /**
+     * The resolved fallback chains by requested locale.
+     */
+    private final ConcurrentMap<Locale, Resolutions> resolutions = new ConcurrentHashMap<Locale, Resolutions>();
+
+    /**
+     * Looks up the value of a key in exactly the given locale.
+     *
+     * @param key The key.
+     * @param locale The locale.
+     *
+     * @return the value or {@code null} if the locale doesn't contain the key.
+     */
+    protected abstract V lookup(String key, Locale locale);
+
+    /**
+     * Returns whether a locale may contain any values at all. Locales without values are left out of the resolved
+     * fallback chains. By default every locale is looked up.
+     *
+     * @param locale The locale.
+     *
+     * @return whether the locale has to be looked up.
+     */
+    protected boolean hasValues(Locale locale)
+    {
+        return true;
+    }
+
+    /**
+     * Returns the value of the first locale of the fallback chain containing the key.
+     *
+     * @param key The key.
+     * @param locale The requested locale.
+     *
+     * @return the value or {@code null} if there is none.
+     */
+    V get(String key, Locale locale)
+    {
+        Resolutions localeResolutions = resolutions.get(locale);
+        if (localeResolutions == null)
+        {
+            Resolutions created = new Resolutions(locale);
+            localeResolutions = resolutions.putIfAbsent(locale, created);
+            if (localeResolutions == null)
+            {
+                localeResolutions = created;
+            }
+        }
+        return localeResolutions.get(key);
+    }
+
+    /**
+     * Returns the number of keys whose lookup result is cached for the given requested locale.
+     *
+     * @param locale The requested locale.
+     *
+     * @return the number of cached results.
+     */
+    int getResolvedCount(Locale locale)
+    {
+        Resolutions localeResolutions = resolutions.get(locale);
+        return localeResolutions == null ? 0 : localeResolutions.resolved.size();
+    }
+
+    /**
+     * The cached lookup results of a requested locale.
+     */
+    private final class Resolutions
+    {
+        /**
+         * The locales of the fallback chain which may have values.
+         */
+        private final Locale[] chain;
+        /**
+         * The values or {@link #MISSING} by key.
+         */
+        private final ConcurrentMap<String, Object> resolved = new ConcurrentHashMap<String, Object>();
+        /**
+         * The number of cached keys without value.
+         */
+        private final AtomicInteger missing = new AtomicInteger();
+
+        /**
+         * Constructor.
+         *
+         * @param locale The requested locale.
+         */
+        private Resolutions(Locale locale)
+        {
+            List<Locale> chain = new ArrayList<Locale>(4);
+            for (Locale candidate : CatalogSnapshot.fallbacks(locale))
+            {
+                if (hasValues(candidate))
+                {
+                    chain.add(candidate);
+                }
+            }
+            this.chain = chain.toArray(new Locale[chain.size()]);
+        }
+
+        /**
+         * Returns the value of the first locale of the fallback chain containing the key.
+         *
+         * @param key The key.
+         *
+         * @return the value or {@code null} if there is none.
+         */
+        @SuppressWarnings("unchecked")
+        private V get(String key)
+        {
+            Object cached = resolved.get(key);
+            if (cached != null)
+            {
+                return cached == MISSING ? null : (V)cached;
+            }
+
+            for (Locale candidate : chain)
+            {
+                V value = lookup(key, candidate);
+                if (value != null)
+                {
+                    resolved.put(key, value);
+                    return value;
+                }
+            }
+            if (missing.get() < MAX_MISSING && resolved.putIfAbsent(key, MISSING) == null)
+            {
+                missing.incrementAndGet();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.cubeengine.dirigent.TemplateDirigent;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
+
+/**
+ * A read-only {@link TemplateStore} backed by a memory-mapped file of encoded templates, see {@link TemplateCodec}.
+ * The templates are only decoded on first use and kept in a bounded cache of the recently used templates, so the heap
+ * usage depends on the number of used templates instead of the size of the catalog. The file is created with
+ * {@link #write(File, Map)} and may be up to 2 GB large.
+ *
+ * The file contains the parsed messages, as the formatters are only known at runtime. If the store is opened with a
+ * {@link TemplateDirigent}, every decoded template is {@link TemplateDirigent#compile(Template) compiled} by it before
+ * it is cached, so the formatters prepare their arguments and constant macros are folded. Without a dirigent the parsed
+ * templates are returned as they are.
+ *
+ * The file starts with a header containing a magic number, the format version, the number of entries, the number of
+ * index slots and the position of the index. The entries follow one after another, each containing the locale, the key
+ * and the encoded template. The index at the end of the file is an open addressing hash table of the key hashes and the
+ * positions of the entries.
+ *
+ * The result of walking the fallback chain of a locale is cached per key and locale by a {@link FallbackCache} as the
+ * position of the entry, including keys without any entry. Larger caches of decoded templates are split into up to
+ * {@link #MAX_SEGMENTS} segments by the position of the entry, each guarded by its own lock and evicting its own least
+ * recently used templates, so threads using different templates rarely wait for each other. Decoded templates are new
+ * instances, so a template evicted from the cache isn't identical to the template decoded for the same key later on.
+ */
+public final class MappedTemplateStore implements TemplateStore
+{
+    /**
+     * The default maximum number of cached templates.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+    /**
+     * The maximum number of segments of the cache.
+     */
+    public static final int MAX_SEGMENTS = 16;
+    /**
+     * The minimum size of a segment, so small caches keep a single segment with an exact eviction order.
+     */
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private static final int MAGIC = 0x44495247;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int SLOT_SIZE = 8;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The number of entries.
+     */
+    private final int size;
+    /**
+     * The number of index slots, a power of two.
+     */
+    private final int slots;
+    /**
+     * The position of the index.
+     */
+    private final int indexPosition;
+    /**
+     * The dirigent compiling the decoded templates. May be null.
+     */
+    private final TemplateDirigent<?> dirigent;
+    /**
+     * The recently used templates by the position of their entry, their number is a power of two.
+     */
+    private final Segment[] segments;
+    /**
+     * The cached positions of the entries found by walking the fallback chains.
+     */
+    private final FallbackCache<Integer> positions = new FallbackCache<Integer>()
+    {
+        @Override
+        protected Integer lookup(String key, Locale locale)
+        {
+            final int position = find(locale.toString().getBytes(TemplateCodec.UTF_8),
+                                      key.getBytes(TemplateCodec.UTF_8));
+            return position < 0 ? null : position;
+        }
+    };
+
+    /**
+     * Constructor.
+     *
+     * @param buffer The mapped file.
+     * @param cacheSize The maximum number of cached templates.
+     * @param dirigent The dirigent compiling the decoded templates. May be null.
+     *
+     * @throws IOException if the file isn't a template store.
+     */
+    private MappedTemplateStore(ByteBuffer buffer, int cacheSize, TemplateDirigent<?> dirigent) throws IOException
+    {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+        {
+            throw new IOException("Not a template store!");
+        }
+        if (buffer.getInt(4) != VERSION)
+        {
+            throw new IOException("Unsupported template store version: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.slots = buffer.getInt(12);
+        this.indexPosition = buffer.getInt(16);
+        this.dirigent = dirigent;
+
+        int count = 1;
+        while (count < MAX_SEGMENTS && cacheSize / (count * 2) >= MIN_SEGMENT_SIZE)
+        {
+            count *= 2;
+        }
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++)
+        {
+            segments[i] = new Segment(cacheSize / count + (i < cacheSize % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Maps a template store file using the {@link #DEFAULT_CACHE_SIZE}.
+     *
+     * @param file The file.
+     *
+     * @return the store.
+     *
+     * @throws IOException if the file can't be mapped or isn't a template store.
+     */
+    public static MappedTemplateStore open(File file) throws IOException
+    {
+        return open(file, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Maps a template store file. The file must not be modified while it is mapped.
+     *
+     * @param file The file.
+     * @param cacheSize The maximum number of cached templates.
+     *
+     * @return the store.
+     *
+     * @throws IOException if the file can't be mapped or isn't a template store.
+     */
+    public static MappedTemplateStore open(File file, int cacheSize) throws IOException
+    {
+        return open(file, cacheSize, null);
+    }
+
+    /**
+     * Maps a template store file whose templates are compiled by the given dirigent. The file must not be modified
+     * while it is mapped.
+     *
+     * @param file The file.
+     * @param cacheSize The maximum number of cached templates.
+     * @param dirigent The dirigent compiling the decoded templates. May be null.
+     *
+     * @return the store.
+     *
+     * @throws IOException if the file can't be mapped or isn't a template store.
+     */
+    public static MappedTemplateStore open(File file, int cacheSize, TemplateDirigent<?> dirigent) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            // the mapping stays valid after closing the file
+            FileChannel channel = raf.getChannel();
+            return new MappedTemplateStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), cacheSize,
+                                           dirigent);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads a template store from a stream, e.g. a resource of the class path, which can't be mapped. The content is
+     * kept in a direct buffer outside of the heap.
+     *
+     * @param in The stream. It isn't closed.
+     * @param cacheSize The maximum number of cached templates.
+     *
+     * @return the store.
+     *
+     * @throws IOException if the stream can't be read or isn't a template store.
+     */
+    public static MappedTemplateStore read(InputStream in, int cacheSize) throws IOException
+    {
+        return read(in, cacheSize, null);
+    }
+
+    /**
+     * Reads a template store from a stream like {@link #read(InputStream, int)}, whose templates are compiled by the
+     * given dirigent.
+     *
+     * @param in The stream. It isn't closed.
+     * @param cacheSize The maximum number of cached templates.
+     * @param dirigent The dirigent compiling the decoded templates. May be null.
+     *
+     * @return the store.
+     *
+     * @throws IOException if the stream can't be read or isn't a template store.
+     */
+    public static MappedTemplateStore read(InputStream in, int cacheSize, TemplateDirigent<?> dirigent)
+        throws IOException
+    {
+        ReadableByteChannel channel = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(HEADER_SIZE, in.available()));
+        while (channel.read(buffer) >= 0)
+        {
+            if (!buffer.hasRemaining())
+            {
+                ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+        buffer.flip();
+        return new MappedTemplateStore(buffer.slice().asReadOnlyBuffer(), cacheSize, dirigent);
+    }
+
+    /**
+     * Parses the source messages and writes them to a template store file.
+     *
+     * @param file The file.
+     * @param messages The source messages by key per locale.
+     *
+     * @throws IOException if the file can't be written or would exceed 2 GB.
+     */
+    public static void write(File file, Map<Locale, Map<String, String>> messages) throws IOException
+    {
+        int size = 0;
+        for (Map<String, String> localeMessages : messages.values())
+        {
+            size += localeMessages.size();
+        }
+        int slots = Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1;
+        int[] index = new int[slots * 2];
+
+        long position = HEADER_SIZE;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(slots);
+            out.writeInt(0); // the index position is known at the end
+
+            for (Map.Entry<Locale, Map<String, String>> localeMessages : messages.entrySet())
+            {
+                final byte[] locale = localeMessages.getKey().toString().getBytes(TemplateCodec.UTF_8);
+                for (Map.Entry<String, String> message : localeMessages.getValue().entrySet())
+                {
+                    final byte[] key = message.getKey().getBytes(TemplateCodec.UTF_8);
+                    final String source = message.getValue();
+                    final byte[] template = TemplateCodec.encode(new Template(source, Parser.parse(source)));
+
+                    int hash = hash(locale, key);
+                    int slot = hash & (slots - 1);
+                    while (index[slot * 2 + 1] != 0)
+                    {
+                        slot = (slot + 1) & (slots - 1);
+                    }
+                    index[slot * 2] = hash;
+                    index[slot * 2 + 1] = (int)position;
+
+                    out.writeInt(locale.length);
+                    out.write(locale);
+                    out.writeInt(key.length);
+                    out.write(key);
+                    out.write(template);
+                    position += 8 + locale.length + key.length + template.length;
+                    if (position + (long)slots * SLOT_SIZE > Integer.MAX_VALUE)
+                    {
+                        throw new IOException("The template store would exceed 2 GB!");
+                    }
+                }
+            }
+
+            for (int value : index)
+            {
+                out.writeInt(value);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            raf.seek(16);
+            raf.writeInt((int)position);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    @Override
+    public Template get(String key, Locale locale)
+    {
+        final Integer position = positions.get(key, locale);
+        return position == null ? null : decode(position);
+    }
+
+    @Override
+    public Template getExact(String key, Locale locale)
+    {
+        final int position = find(locale.toString().getBytes(TemplateCodec.UTF_8), key.getBytes(TemplateCodec.UTF_8));
+        return position < 0 ? null : decode(position);
+    }
+
+    /**
+     * Returns the number of keys whose lookup result is cached for the given requested locale.
+     *
+     * @param locale The requested locale.
+     *
+     * @return the number of cached results.
+     */
+    int getResolvedCount(Locale locale)
+    {
+        return positions.getResolvedCount(locale);
+    }
+
+    /**
+     * Returns the segment of the cache holding the template of an entry.
+     *
+     * @param position The position of the entry.
+     *
+     * @return the segment.
+     */
+    private Segment segmentOf(int position)
+    {
+        // positions are offsets in the file, so mix the higher bits into the lower ones selecting the segment
+        final int hash = position * 0x9E3779B9;
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Returns the template of an entry, decoding and compiling it unless it is cached.
+     *
+     * @param position The position of the entry.
+     *
+     * @return the template.
+     */
+    private Template decode(Integer position)
+    {
+        final Segment segment = segmentOf(position);
+        synchronized (segment)
+        {
+            Template template = segment.get(position);
+            if (template != null)
+            {
+                return template;
+            }
+        }
+
+        ByteBuffer in = buffer.duplicate();
+        in.position(position);
+        in.position(position + 4 + in.getInt());
+        final byte[] key = new byte[in.getInt()];
+        in.get(key);
+        Template template = TemplateCodec.decode(in);
+        template = new Template(new String(key, TemplateCodec.UTF_8), template.getSource(), template.getElements());
+        if (dirigent != null)
+        {
+            template = dirigent.compile(template);
+        }
+
+        synchronized (segment)
+        {
+            Template cached = segment.get(position);
+            if (cached != null)
+            {
+                return cached;
+            }
+            segment.put(position, template);
+        }
+        return template;
+    }
+
+    /**
+     * Finds the entry of a key in the index.
+     *
+     * @param locale The UTF-8 encoded locale.
+     * @param key The UTF-8 encoded key.
+     *
+     * @return the position of the entry or -1 if there is none.
+     */
+    private int find(byte[] locale, byte[] key)
+    {
+        final int hash = hash(locale, key);
+        for (int slot = hash & (slots - 1); ; slot = (slot + 1) & (slots - 1))
+        {
+            final int slotPosition = indexPosition + slot * SLOT_SIZE;
+            final int position = buffer.getInt(slotPosition + 4);
+            if (position == 0)
+            {
+                return -1;
+            }
+            if (buffer.getInt(slotPosition) == hash && matches(position, locale)
+                && matches(position + 4 + locale.length, key))
+            {
+                return position;
+            }
+        }
+    }
+
+    /**
+     * Compares a length prefixed byte string of the file.
+     *
+     * @param position The position of the length.
+     * @param bytes The expected bytes.
+     *
+     * @return whether the bytes are equal.
+     */
+    private boolean matches(int position, byte[] bytes)
+    {
+        if (buffer.getInt(position) != bytes.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            if (buffer.get(position + 4 + i) != bytes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the hash of an entry.
+     *
+     * @param locale The UTF-8 encoded locale.
+     * @param key The UTF-8 encoded key.
+     *
+     * @return the hash.
+     */
+    private static int hash(byte[] locale, byte[] key)
+    {
+        int hash = 1;
+        for (byte b : locale)
+        {
+            hash = 31 * hash + b;
+        }
+        hash = 31 * hash;
+        for (byte b : key)
+        {
+            hash = 31 * hash + b;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the number of templates in the file.
+     *
+     * @return the number of templates.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of decoded templates in the cache.
+     *
+     * @return the number of cached templates.
+     */
+    public int getCachedSize()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A part of the cache guarded by its own lock, holding the recently used templates by the position of their entry
+     * in access order.
+     */
+    private static final class Segment extends LinkedHashMap<Integer, Template>
+    {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The maximum number of templates of this segment.
+         */
+        private final int maximumSize;
+
+        Segment(int maximumSize)
+        {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Template> eldest)
+        {
+            return size() > maximumSize;
+        }
+    }
+}
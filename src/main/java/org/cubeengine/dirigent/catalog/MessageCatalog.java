@@ -0,0 +1,301 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.TemplateDirigent;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.element.Element;
+
+/**
+ * A catalog of messages compiled by a {@link TemplateDirigent}, identified by a key and translated to several locales.
+ * The messages are loaded from a {@link CatalogSource} and can be reloaded while the catalog is used. Every reload
+ * only compiles the changed messages and then replaces the immutable {@link CatalogSnapshot} at once, so readers never
+ * block and never see a partially reloaded catalog. Alternatively the catalog is backed by a fixed {@link TemplateStore},
+ * e.g. a {@link MappedTemplateStore} opened with the same dirigent, which is never reloaded.
+ *
+ * @param <MessageT> the message type
+ */
+public class MessageCatalog<MessageT>
+{
+    /**
+     * The dirigent compiling and composing the messages.
+     */
+    private final TemplateDirigent<MessageT> dirigent;
+    /**
+     * The source of the messages or null if the catalog is backed by a fixed store.
+     */
+    private final CatalogSource source;
+    /**
+     * The current snapshot.
+     */
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    /**
+     * The store providing the templates, the current snapshot unless the catalog is backed by a fixed store.
+     */
+    private volatile TemplateStore store = CatalogSnapshot.EMPTY;
+    /**
+     * The placeholder templates of missing keys, so they keep their identity, e.g. for the
+     * {@link org.cubeengine.dirigent.cache.OutputCache}. The map is cleared once it holds
+     * {@link FallbackCache#MAX_MISSING} placeholders.
+     */
+    private final ConcurrentMap<String, Template> placeholders = new ConcurrentHashMap<String, Template>();
+    /**
+     * The version of the source messages of the current snapshot.
+     */
+    private volatile Long version;
+    /**
+     * The failure of the last reload in the background.
+     */
+    private volatile Exception reloadFailure;
+
+    /**
+     * Constructor. The catalog is empty until it is {@link #reload() loaded}.
+     *
+     * @param dirigent The dirigent compiling and composing the messages.
+     * @param source The source of the messages.
+     */
+    public MessageCatalog(TemplateDirigent<MessageT> dirigent, CatalogSource source)
+    {
+        this.dirigent = dirigent;
+        this.source = source;
+    }
+
+    /**
+     * Constructor. The catalog is backed by the given store, which has nothing to {@link #reload() reload}. The
+     * templates of the store should be compiled by the given dirigent, see
+     * {@link MappedTemplateStore#open(java.io.File, int, TemplateDirigent)}.
+     *
+     * @param dirigent The dirigent composing the messages.
+     * @param store The store providing the templates.
+     */
+    public MessageCatalog(TemplateDirigent<MessageT> dirigent, TemplateStore store)
+    {
+        this.dirigent = dirigent;
+        this.source = null;
+        this.store = store;
+    }
+
+    /**
+     * Returns the current snapshot.
+     *
+     * @return the snapshot or {@link CatalogSnapshot#EMPTY} if the catalog is backed by a fixed store.
+     */
+    public CatalogSnapshot getSnapshot()
+    {
+        return snapshot;
+    }
+
+    /**
+     * Returns the store providing the templates, which is the current snapshot unless the catalog is backed by a fixed
+     * store.
+     *
+     * @return the store.
+     */
+    public TemplateStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Returns the template of a key, following the fallback chain of the locale.
+     *
+     * @param key The key.
+     * @param locale The locale.
+     *
+     * @return the template or {@code null} if the key is missing.
+     */
+    public Template get(String key, Locale locale)
+    {
+        return store.get(key, locale);
+    }
+
+    /**
+     * Composes the message of a key in the locale of the context. Missing keys are composed to the key itself, so they
+     * are noticed.
+     *
+     * @param context The compose context.
+     * @param key The key.
+     * @param inputs The message input parameters.
+     *
+     * @return the composed message.
+     */
+    public MessageT compose(Context context, String key, Object... inputs)
+    {
+        Template template = get(key, context.get(Contexts.LOCALE));
+        if (template == null)
+        {
+            template = placeholderOf(key);
+        }
+        return dirigent.compose(context, template, inputs);
+    }
+
+    /**
+     * Returns the placeholder template of a missing key, which is composed to the key itself.
+     *
+     * @param key The key.
+     *
+     * @return the placeholder.
+     */
+    private Template placeholderOf(String key)
+    {
+        Template placeholder = placeholders.get(key);
+        if (placeholder == null)
+        {
+            if (placeholders.size() >= FallbackCache.MAX_MISSING)
+            {
+                placeholders.clear();
+            }
+            placeholder = new Template(key, key, Collections.<Element>singletonList(new Text(key)));
+            Template existing = placeholders.putIfAbsent(key, placeholder);
+            if (existing != null)
+            {
+                placeholder = existing;
+            }
+        }
+        return placeholder;
+    }
+
+    /**
+     * Loads the messages from the source. Messages which didn't change since the last reload keep their compiled
+     * templates, only changed messages are compiled again.
+     *
+     * @return the number of compiled messages, always 0 if the catalog is backed by a fixed store.
+     *
+     * @throws IOException if the messages can't be loaded. The catalog remains unchanged in that case.
+     */
+    public synchronized int reload() throws IOException
+    {
+        if (source == null)
+        {
+            return 0;
+        }
+        final long loadedVersion = source.getVersion();
+        final Map<Locale, Map<String, String>> messages = source.load();
+        final CatalogSnapshot previous = snapshot;
+
+        int compiled = 0;
+        int count = 0;
+        Map<Locale, Map<String, Template>> templates = new HashMap<Locale, Map<String, Template>>();
+        for (Map.Entry<Locale, Map<String, String>> localeMessages : messages.entrySet())
+        {
+            final Locale locale = localeMessages.getKey();
+            Map<String, Template> localeTemplates = new HashMap<String, Template>();
+            for (Map.Entry<String, String> message : localeMessages.getValue().entrySet())
+            {
+                Template template = previous.getExact(message.getKey(), locale);
+                if (template == null || !template.getSource().equals(message.getValue()))
+                {
+                    template = dirigent.compile(message.getValue());
+                    template = new Template(message.getKey(), template.getSource(), template.getElements());
+                    compiled++;
+                }
+                localeTemplates.put(message.getKey(), template);
+            }
+            templates.put(locale, localeTemplates);
+            count += localeTemplates.size();
+        }
+
+        if (compiled > 0 || count != previous.size())
+        {
+            snapshot = new CatalogSnapshot(templates);
+            store = snapshot;
+        }
+        version = loadedVersion;
+        return compiled;
+    }
+
+    /**
+     * Reloads the messages if the version of the source changed since the last reload.
+     *
+     * @return whether the messages were reloaded, never if the catalog is backed by a fixed store.
+     *
+     * @throws IOException if the messages can't be loaded.
+     */
+    public boolean reloadIfChanged() throws IOException
+    {
+        if (source == null)
+        {
+            return false;
+        }
+        final Long current = version;
+        if (current != null && current == source.getVersion())
+        {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    /**
+     * Polls the source for changes in the background and reloads the messages if they changed. Failures are kept, see
+     * {@link #getReloadFailure()}, and the previous messages stay in use until the next successful reload.
+     *
+     * @param executor The executor polling the source.
+     * @param period The delay between two polls.
+     * @param unit The unit of the delay.
+     *
+     * @return the future of the polling task, which can be used to stop watching.
+     */
+    public ScheduledFuture<?> watch(ScheduledExecutorService executor, long period, TimeUnit unit)
+    {
+        return executor.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    reloadIfChanged();
+                    reloadFailure = null;
+                }
+                catch (Exception e)
+                {
+                    reloadFailure = e;
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Returns the failure of the last reload in the background.
+     *
+     * @return the failure or {@code null} if the last reload succeeded.
+     */
+    public Exception getReloadFailure()
+    {
+        return reloadFailure;
+    }
+}
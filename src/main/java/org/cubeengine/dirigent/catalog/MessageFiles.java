@@ -0,0 +1,312 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads source messages from message files.
+ */
+public final class MessageFiles
+{
+    /**
+     * The charset of message files.
+     */
+    private static final String CHARSET = "UTF-8";
+
+    private MessageFiles()
+    {
+    }
+
+    /**
+     * Reads the messages of a properties file encoded as UTF-8.
+     *
+     * @param in The content of the file.
+     *
+     * @return the messages by key.
+     *
+     * @throws IOException if the file can't be read.
+     */
+    public static Map<String, String> readProperties(InputStream in) throws IOException
+    {
+        Properties properties = new Properties();
+        properties.load(new InputStreamReader(in, CHARSET));
+        Map<String, String> messages = new HashMap<String, String>();
+        for (String key : properties.stringPropertyNames())
+        {
+            messages.put(key, properties.getProperty(key));
+        }
+        return messages;
+    }
+
+    /**
+     * Reads the messages of a file in a simple subset of YAML encoded as UTF-8. Every line contains a
+     * {@code key: value} pair. Keys without value start a section, the keys of the following lines with a deeper
+     * indentation are prefixed with the key of the section and a dot. Values may be quoted with double quotes,
+     * supporting the escape sequences {@code \n}, {@code \t}, {@code \"} and {@code \\} while other backslashes
+     * are kept, or with single quotes, in which a single quote is written as {@code ''}. Lines starting with {@code #}
+     * are comments, as is text starting with {@code " #"} after a closing quote or outside of the macro braces of an
+     * unquoted value, so {@code {plural:other=# items}} stays intact. Unlike YAML, unquoted values starting with a brace are
+     * plain text, so macros don't have to be quoted. Lists, multi-line values and anchors aren't supported.
+     *
+     * <pre>
+     * chat:
+     *   join: {} joined the game
+     *   leave: "{} left the game\n"
+     * </pre>
+     *
+     * @param in The content of the file.
+     * @param name The name of the file used for error messages.
+     *
+     * @return the messages by key.
+     *
+     * @throws IOException if the file can't be read or is malformed.
+     */
+    public static Map<String, String> readYaml(InputStream in, String name) throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, CHARSET));
+        Map<String, String> messages = new HashMap<String, String>();
+        List<Integer> indents = new ArrayList<Integer>();
+        List<String> prefixes = new ArrayList<String>();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null)
+        {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.length() == 0 || trimmed.charAt(0) == '#')
+            {
+                continue;
+            }
+
+            int indent = 0;
+            while (line.charAt(indent) == ' ')
+            {
+                indent++;
+            }
+            if (line.charAt(indent) == '\t')
+            {
+                throw new IOException(name + ":" + lineNumber + ": Tabs aren't allowed for indentation");
+            }
+            int separator = separatorOf(line, indent);
+            if (separator < 0)
+            {
+                throw new IOException(name + ":" + lineNumber + ": Expected 'key: value'");
+            }
+
+            while (!indents.isEmpty() && indent <= indents.get(indents.size() - 1))
+            {
+                indents.remove(indents.size() - 1);
+                prefixes.remove(prefixes.size() - 1);
+            }
+            String prefix = prefixes.isEmpty() ? "" : prefixes.get(prefixes.size() - 1);
+            String key = prefix + line.substring(indent, separator).trim();
+            String value = line.substring(separator + 1).trim();
+            if (value.length() == 0)
+            {
+                indents.add(indent);
+                prefixes.add(key + ".");
+            }
+            else
+            {
+                messages.put(key, valueOf(value, name, lineNumber));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Finds the colon separating the key and the value, which is followed by a space or the end of the line.
+     *
+     * @param line The line.
+     * @param from The index of the key.
+     *
+     * @return the index of the separator or -1.
+     */
+    private static int separatorOf(String line, int from)
+    {
+        for (int i = line.indexOf(':', from); i >= 0; i = line.indexOf(':', i + 1))
+        {
+            if (i + 1 == line.length() || line.charAt(i + 1) == ' ')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a possibly quoted value.
+     *
+     * @param value The trimmed value.
+     * @param name The name of the file used for error messages.
+     * @param lineNumber The line number used for error messages.
+     *
+     * @return the value.
+     *
+     * @throws IOException if a quoted value isn't terminated or followed by anything but a comment.
+     */
+    private static String valueOf(String value, String name, int lineNumber) throws IOException
+    {
+        final char first = value.charAt(0);
+        if (first == '"' || first == '\'')
+        {
+            int end = closingQuoteOf(value, first);
+            if (end < 0)
+            {
+                throw new IOException(name + ":" + lineNumber + ": Unterminated quoted value");
+            }
+            String rest = value.substring(end + 1).trim();
+            if (rest.length() != 0 && (rest.charAt(0) != '#' || value.charAt(end + 1) != ' '))
+            {
+                throw new IOException(name + ":" + lineNumber + ": Unexpected text after quoted value");
+            }
+            String quoted = value.substring(1, end);
+            return first == '"' ? unescape(quoted) : quoted.replace("''", "'");
+        }
+
+        int comment = commentOf(value);
+        return comment < 0 ? value : value.substring(0, comment).trim();
+    }
+
+    /**
+     * Finds the quote closing a quoted value. Within double quotes a backslash escapes the next character, within single
+     * quotes two single quotes are a quote.
+     *
+     * @param value The value starting with the quote.
+     * @param quote The quote character.
+     *
+     * @return the index of the closing quote or -1.
+     */
+    private static int closingQuoteOf(String value, char quote)
+    {
+        for (int i = 1; i < value.length(); ++i)
+        {
+            final char c = value.charAt(i);
+            if (quote == '"' && c == '\\')
+            {
+                i++;
+            }
+            else if (c == quote)
+            {
+                if (quote == '\'' && i + 1 < value.length() && value.charAt(i + 1) == '\'')
+                {
+                    i++;
+                }
+                else
+                {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the comment of an unquoted value, which starts with {@code " #"} outside of macro braces. Escaped braces
+     * don't open or close a macro.
+     *
+     * @param value The unquoted value.
+     *
+     * @return the index of the comment or -1.
+     */
+    private static int commentOf(String value)
+    {
+        int depth = 0;
+        for (int i = 0; i < value.length(); ++i)
+        {
+            final char c = value.charAt(i);
+            if (c == '\\')
+            {
+                i++;
+            }
+            else if (c == '{')
+            {
+                depth++;
+            }
+            else if (c == '}' && depth > 0)
+            {
+                depth--;
+            }
+            else if (c == ' ' && depth == 0 && i + 1 < value.length() && value.charAt(i + 1) == '#')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces the escape sequences of a double quoted value.
+     *
+     * @param quoted The value without the quotes.
+     *
+     * @return the unescaped value.
+     */
+    private static String unescape(String quoted)
+    {
+        if (quoted.indexOf('\\') < 0)
+        {
+            return quoted;
+        }
+        StringBuilder out = new StringBuilder(quoted.length());
+        for (int i = 0; i < quoted.length(); ++i)
+        {
+            char c = quoted.charAt(i);
+            if (c == '\\' && i + 1 < quoted.length())
+            {
+                final char next = quoted.charAt(i + 1);
+                switch (next)
+                {
+                    case 'n':
+                        c = '\n';
+                        i++;
+                        break;
+                    case 't':
+                        c = '\t';
+                        i++;
+                        break;
+                    case '"':
+                    case '\\':
+                        c = next;
+                        i++;
+                        break;
+                    default:
+                        // e.g. escaped macro braces of the message
+                        break;
+                }
+            }
+            out.append(c);
+        }
+        return out.toString();
+    }
+}
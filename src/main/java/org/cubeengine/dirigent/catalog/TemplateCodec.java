@@ -0,0 +1,297 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.element.CompleteMacro;
+import org.cubeengine.dirigent.parser.element.DefaultMacro;
+import org.cubeengine.dirigent.parser.element.Element;
+import org.cubeengine.dirigent.parser.element.ElementVisitor;
+import org.cubeengine.dirigent.parser.element.IndexedDefaultMacro;
+import org.cubeengine.dirigent.parser.element.NamedMacro;
+
+/**
+ * Encodes parsed {@link Template}s into a compact binary form and decodes them again without parsing the source.
+ * The encoded form is independent of the platform.
+ *
+ * A template is encoded as its source followed by the number of elements and the elements. Every element starts with
+ * a tag byte, followed by the index, the name and the arguments depending on the element type. Strings are encoded
+ * as their UTF-8 length followed by the UTF-8 bytes.
+ */
+public final class TemplateCodec
+{
+    /**
+     * The charset of strings.
+     */
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte TEXT = 0;
+    private static final byte DEFAULT_MACRO = 1;
+    private static final byte INDEXED_DEFAULT_MACRO = 2;
+    private static final byte NAMED_MACRO = 3;
+    private static final byte COMPLETE_MACRO = 4;
+
+    /**
+     * The visitor writing the elements.
+     */
+    private static final ElementVisitor<DataOutputStream, Void> ENCODER = new ElementVisitor<DataOutputStream, Void>()
+    {
+        @Override
+        public void visitText(Text element, DataOutputStream out, Void v)
+        {
+            write(out, TEXT);
+            writeString(out, element.getText());
+        }
+
+        @Override
+        public void visitDefaultMacro(DefaultMacro element, DataOutputStream out, Void v)
+        {
+            write(out, DEFAULT_MACRO);
+        }
+
+        @Override
+        public void visitIndexedDefaultMacro(IndexedDefaultMacro element, DataOutputStream out, Void v)
+        {
+            write(out, INDEXED_DEFAULT_MACRO);
+            writeInt(out, element.getIndex());
+        }
+
+        @Override
+        public void visitNamedMacro(NamedMacro element, DataOutputStream out, Void v)
+        {
+            write(out, NAMED_MACRO);
+            writeString(out, element.getName());
+            writeArguments(out, element.getArgs());
+        }
+
+        @Override
+        public void visitCompleteMacro(CompleteMacro element, DataOutputStream out, Void v)
+        {
+            write(out, COMPLETE_MACRO);
+            writeInt(out, element.getIndex());
+            writeString(out, element.getName());
+            writeArguments(out, element.getArgs());
+        }
+    };
+
+    private TemplateCodec()
+    {
+    }
+
+    /**
+     * Encodes a template.
+     *
+     * @param template The template.
+     *
+     * @return the encoded template.
+     */
+    public static byte[] encode(Template template)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, template.getSource());
+        List<Element> elements = template.getElements();
+        writeInt(out, elements.size());
+        for (Element element : elements)
+        {
+            element.accept(ENCODER, out, null);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a template from the current position of the buffer and advances the position behind it.
+     *
+     * @param in The buffer.
+     *
+     * @return the template.
+     */
+    public static Template decode(ByteBuffer in)
+    {
+        final String source = readString(in);
+        final int size = in.getInt();
+        List<Element> elements = new ArrayList<Element>(size);
+        for (int i = 0; i < size; ++i)
+        {
+            final byte tag = in.get();
+            switch (tag)
+            {
+                case TEXT:
+                    elements.add(Text.create(readString(in)));
+                    break;
+                case DEFAULT_MACRO:
+                    elements.add(DefaultMacro.DEFAULT_MACRO);
+                    break;
+                case INDEXED_DEFAULT_MACRO:
+                    elements.add(new IndexedDefaultMacro(in.getInt()));
+                    break;
+                case NAMED_MACRO:
+                    elements.add(new NamedMacro(readString(in), readArguments(in)));
+                    break;
+                case COMPLETE_MACRO:
+                    final int index = in.getInt();
+                    elements.add(new CompleteMacro(index, readString(in), readArguments(in)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown element tag: " + tag);
+            }
+        }
+        return new Template(source, elements);
+    }
+
+    /**
+     * Writes the values and parameters of macro arguments.
+     *
+     * @param out The stream.
+     * @param arguments The arguments.
+     */
+    private static void writeArguments(DataOutputStream out, Arguments arguments)
+    {
+        List<String> values = arguments.getValues();
+        writeInt(out, values.size());
+        for (String value : values)
+        {
+            writeString(out, value);
+        }
+        Map<String, String> parameters = arguments.getParameters();
+        writeInt(out, parameters.size());
+        for (Map.Entry<String, String> parameter : parameters.entrySet())
+        {
+            writeString(out, parameter.getKey());
+            writeString(out, parameter.getValue());
+        }
+    }
+
+    /**
+     * Reads the values and parameters of macro arguments.
+     *
+     * @param in The buffer.
+     *
+     * @return the arguments.
+     */
+    private static Arguments readArguments(ByteBuffer in)
+    {
+        final int valueCount = in.getInt();
+        List<String> values = null;
+        if (valueCount > 0)
+        {
+            values = new ArrayList<String>(valueCount);
+            for (int i = 0; i < valueCount; ++i)
+            {
+                values.add(readString(in));
+            }
+        }
+        final int parameterCount = in.getInt();
+        Map<String, String> parameters = null;
+        if (parameterCount > 0)
+        {
+            parameters = new HashMap<String, String>(parameterCount * 2);
+            for (int i = 0; i < parameterCount; ++i)
+            {
+                parameters.put(readString(in), readString(in));
+            }
+        }
+        return Arguments.create(values, parameters);
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param in The buffer.
+     *
+     * @return the string.
+     */
+    static String readString(ByteBuffer in)
+    {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Writes a string.
+     *
+     * @param out The stream.
+     * @param string The string.
+     */
+    static void writeString(DataOutputStream out, String string)
+    {
+        byte[] bytes = string.getBytes(UTF_8);
+        writeInt(out, bytes.length);
+        try
+        {
+            out.write(bytes);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e); // never thrown by a ByteArrayOutputStream
+        }
+    }
+
+    /**
+     * Writes an int.
+     *
+     * @param out The stream.
+     * @param value The value.
+     */
+    private static void writeInt(DataOutputStream out, int value)
+    {
+        try
+        {
+            out.writeInt(value);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e); // never thrown by a ByteArrayOutputStream
+        }
+    }
+
+    /**
+     * Writes a byte.
+     *
+     * @param out The stream.
+     * @param value The value.
+     */
+    private static void write(DataOutputStream out, byte value)
+    {
+        try
+        {
+            out.writeByte(value);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e); // never thrown by a ByteArrayOutputStream
+        }
+    }
+}
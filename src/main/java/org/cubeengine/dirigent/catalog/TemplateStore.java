@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.util.Locale;
+import org.cubeengine.dirigent.parser.Template;
+
+/**
+ * Provides compiled templates by key per locale.
+ */
+public interface TemplateStore
+{
+    /**
+     * Returns the template of a key, following the fallback chain of the locale, see
+     * {@link CatalogSnapshot#fallbacks(Locale)}.
+     *
+     * @param key The key.
+     * @param locale The locale.
+     *
+     * @return the template or {@code null} if neither the locale nor its fallbacks contain the key.
+     */
+    Template get(String key, Locale locale);
+
+    /**
+     * Returns the template of a key in exactly the given locale.
+     *
+     * @param key The key.
+     * @param locale The locale.
+     *
+     * @return the template or {@code null} if the locale doesn't contain the key.
+     */
+    Template getExact(String key, Locale locale);
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.codegen;
+
+import java.util.List;
+import org.cubeengine.dirigent.AbstractDirigent;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.formatter.ConstantFormatter;
+import org.cubeengine.dirigent.formatter.Formatter;
+
+/**
+ * A macro of a generated message class bound to the formatters of its name. It appends the formatted input directly to
+ * the builder of the message, see {@link Formatter#processTo(Object, Context, Arguments, StringBuilder)}.
+ */
+public final class CompiledMacro
+{
+    /**
+     * The dirigent providing the formatters.
+     */
+    private final AbstractDirigent<String> dirigent;
+    /**
+     * The name of the macro or {@code null} for default macros.
+     */
+    private final String name;
+    /**
+     * The arguments of the macro.
+     */
+    private final Arguments arguments;
+    /**
+     * The index of the input parameter or {@code -1} if the macro doesn't specify one.
+     */
+    private final int index;
+    /**
+     * The formatters of the macro name.
+     */
+    private List<Formatter<?>> formatters;
+
+    /**
+     * Constructor.
+     *
+     * @param dirigent The dirigent providing the formatters.
+     * @param name The name of the macro or {@code null} for default macros.
+     * @param arguments The arguments of the macro.
+     * @param index The index of the input parameter or {@code -1} if the macro doesn't specify one.
+     */
+    CompiledMacro(AbstractDirigent<String> dirigent, String name, Arguments arguments, int index)
+    {
+        this.dirigent = dirigent;
+        this.name = name;
+        this.arguments = arguments;
+        this.index = index;
+        this.formatters = dirigent.getFormatters(name);
+    }
+
+    /**
+     * Formats the input parameter of this macro with the first applicable formatter and appends the result to the
+     * builder. Like the interpreted composition, a macro without index formats the next implicit input parameter,
+     * unless it is handled by a {@link ConstantFormatter}.
+     *
+     * @param out The builder of the message.
+     * @param context The compose context.
+     * @param inputs The message input parameters.
+     * @param implicitIndex The index of the next implicit input parameter.
+     *
+     * @return the index of the next implicit input parameter or {@code -1} if the macro can't be appended directly,
+     * e.g. because it is unresolvable or the formatter doesn't support direct formatting.
+     */
+    @SuppressWarnings("unchecked")
+    public int append(StringBuilder out, Context context, Object[] inputs, int implicitIndex)
+    {
+        List<Formatter<?>> formatters = this.formatters;
+        if (formatters.isEmpty())
+        {
+            // formatters might have been registered after binding the macro
+            formatters = this.formatters = dirigent.getFormatters(name);
+        }
+
+        final int argIndex = index < 0 ? implicitIndex : index;
+        final Object input = argIndex < inputs.length ? inputs[argIndex] : null;
+        for (int i = 0, size = formatters.size(); i < size; ++i)
+        {
+            final Formatter<?> formatter = formatters.get(i);
+            if (formatter.isApplicable(input))
+            {
+                if (formatter instanceof ConstantFormatter)
+                {
+                    return ((ConstantFormatter)formatter).processTo(null, context, arguments, out) ? implicitIndex : -1;
+                }
+                if (!((Formatter<Object>)formatter).processTo(input, context, arguments, out))
+                {
+                    return -1;
+                }
+                return index < 0 ? implicitIndex + 1 : implicitIndex;
+            }
+        }
+        return -1;
+    }
+}
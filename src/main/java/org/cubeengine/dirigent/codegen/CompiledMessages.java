@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.codegen;
+
+import java.util.List;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.metrics.DirigentMetrics;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.element.Element;
+import org.cubeengine.dirigent.parser.element.Indexed;
+import org.cubeengine.dirigent.parser.element.NamedMacro;
+
+/**
+ * The base class of the message classes generated by the {@link TemplateClassGenerator}. A generated class has a method
+ * for every message which appends the texts and macros of the message one after another, without iterating over the
+ * parsed elements and without creating intermediate components. The macros are bound to the formatters of a
+ * {@link StringBuilderDirigent} when the class is instantiated.
+ *
+ * A message is composed by the dirigent instead, if a macro can't be appended directly, e.g. because it is
+ * unresolvable or its formatter doesn't support direct formatting, and if global post processors are attached or
+ * metrics measuring durations are enabled, see {@link DirigentMetrics#isTiming()}. The output is the same in both cases,
+ * but the formatters of the macros before the failing macro are called twice. Metrics only using traces, like flight
+ * recorder events, don't disable the generated code, so messages composed by it aren't traced.
+ */
+public abstract class CompiledMessages
+{
+    /**
+     * The dirigent providing the formatters.
+     */
+    private final StringBuilderDirigent dirigent;
+    /**
+     * The source messages.
+     */
+    private final String[] sources;
+    /**
+     * The compiled messages used if a message can't be composed by the generated code.
+     */
+    private final Template[] templates;
+    /**
+     * The index of the message parsed last while binding the macros.
+     */
+    private int parsedMessage = -1;
+    /**
+     * The elements of the message parsed last while binding the macros.
+     */
+    private List<Element> parsedElements;
+
+    /**
+     * Constructor.
+     *
+     * @param dirigent The dirigent providing the formatters.
+     * @param sources The source messages in the order of their indices in the generated code.
+     */
+    protected CompiledMessages(StringBuilderDirigent dirigent, String... sources)
+    {
+        this.dirigent = dirigent;
+        this.sources = sources;
+        this.templates = new Template[sources.length];
+        for (int i = 0; i < sources.length; i++)
+        {
+            this.templates[i] = dirigent.compile(sources[i]);
+        }
+    }
+
+    /**
+     * Binds a macro of a message to the formatters of the dirigent.
+     *
+     * @param message The index of the message.
+     * @param element The index of the macro in the parsed elements of the message.
+     *
+     * @return the bound macro.
+     */
+    protected final CompiledMacro macro(int message, int element)
+    {
+        if (parsedMessage != message)
+        {
+            parsedElements = Parser.parse(sources[message]);
+            parsedMessage = message;
+        }
+        Element macro = parsedElements.get(element);
+        String name = null;
+        Arguments arguments = Arguments.NONE;
+        if (macro instanceof NamedMacro)
+        {
+            name = ((NamedMacro)macro).getName();
+            arguments = ((NamedMacro)macro).getArgs();
+        }
+        int index = macro instanceof Indexed ? ((Indexed)macro).getIndex() : -1;
+        return new CompiledMacro(dirigent, name, arguments, index);
+    }
+
+    /**
+     * Returns whether the messages have to be composed by the dirigent, because global post processors are attached or
+     * metrics measuring durations are enabled.
+     *
+     * @return whether the generated code can't be used.
+     */
+    protected final boolean isInterpreted()
+    {
+        return dirigent.hasPostProcessors() || dirigent.getMetrics().isTiming();
+    }
+
+    /**
+     * Composes a message with the dirigent.
+     *
+     * @param message The index of the message.
+     * @param context The compose context.
+     * @param inputs The message input parameters.
+     *
+     * @return the composed message.
+     */
+    protected final String interpret(int message, Context context, Object[] inputs)
+    {
+        return dirigent.compose(context, templates[message], inputs);
+    }
+
+    /**
+     * Returns the dirigent providing the formatters.
+     *
+     * @return the dirigent.
+     */
+    public final StringBuilderDirigent getDirigent()
+    {
+        return dirigent;
+    }
+}
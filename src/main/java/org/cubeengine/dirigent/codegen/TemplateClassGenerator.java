@@ -0,0 +1,345 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.codegen;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.element.Element;
+
+/**
+ * Generates the Java source of a {@link CompiledMessages} class with a method for every message. A message method
+ * appends the texts of the message as string literals and the macros by calling the {@link CompiledMacro} bound to it,
+ * so composing a message is a straight sequence of appends. The generated class is meant to be created at build time,
+ * e.g. by the {@code generate} goal of the {@code dirigent-maven-plugin}.
+ */
+public final class TemplateClassGenerator
+{
+    /**
+     * The initial builder capacity reserved for every macro.
+     */
+    private static final int MACRO_CAPACITY = 16;
+
+    /**
+     * The names which can't be used as method names of the generated class.
+     */
+    private static final Set<String> RESERVED = new HashSet<String>(Arrays.asList(
+        // keywords and literals
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+        "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+        "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+        "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+        "throw", "throws", "transient", "try", "void", "volatile", "while", "true", "false", "null", "_",
+        // methods of Object and CompiledMessages
+        "clone", "equals", "finalize", "getClass", "hashCode", "notify", "notifyAll", "toString", "wait",
+        "getDirigent", "interpret", "isInterpreted", "macro"));
+
+    private TemplateClassGenerator()
+    {
+    }
+
+    /**
+     * Generates the source of a message class. The methods are named after the message keys, see
+     * {@link #methodName(String)}, and sorted by key.
+     *
+     * @param packageName The package of the class, empty for the default package.
+     * @param className The simple name of the class.
+     * @param messages The messages mapped by their keys.
+     *
+     * @return the Java source of the class.
+     */
+    public static String generate(String packageName, String className, Map<String, String> messages)
+    {
+        final Map<String, String> sorted = new TreeMap<String, String>(messages);
+        final StringBuilder out = new StringBuilder(1024 + 256 * sorted.size());
+
+        out.append("// Generated by the Dirigent TemplateClassGenerator. Don't edit.\n");
+        if (packageName.length() != 0)
+        {
+            out.append("package ").append(packageName).append(";\n");
+        }
+        out.append('\n');
+        out.append("import org.cubeengine.dirigent.builder.StringBuilderDirigent;\n");
+        out.append("import org.cubeengine.dirigent.codegen.CompiledMacro;\n");
+        out.append("import org.cubeengine.dirigent.codegen.CompiledMessages;\n");
+        out.append("import org.cubeengine.dirigent.context.Context;\n");
+        out.append('\n');
+        out.append("/**\n");
+        out.append(" * The compiled messages. Every message is composed by the method named after its key.\n");
+        out.append(" */\n");
+        out.append("public final class ").append(className).append(" extends CompiledMessages\n");
+        out.append("{\n");
+
+        out.append("    private static final String[] SOURCES = {\n");
+        for (String source : sorted.values())
+        {
+            out.append("        ");
+            appendLiteral(out, source);
+            out.append(",\n");
+        }
+        out.append("    };\n\n");
+
+        final StringBuilder fields = new StringBuilder();
+        final StringBuilder bindings = new StringBuilder();
+        final StringBuilder methods = new StringBuilder();
+        final Set<String> usedNames = new HashSet<String>();
+        int message = 0;
+        for (Map.Entry<String, String> entry : sorted.entrySet())
+        {
+            String name = methodName(entry.getKey());
+            for (int suffix = 2; !usedNames.add(name); suffix++)
+            {
+                name = methodName(entry.getKey()) + suffix;
+            }
+            generateMethod(methods, fields, bindings, message++, name, entry.getKey(), entry.getValue());
+        }
+
+        out.append(fields);
+        if (fields.length() != 0)
+        {
+            out.append('\n');
+        }
+        out.append("    /**\n");
+        out.append("     * Constructor. Binds the macros of the messages to the formatters of the dirigent.\n");
+        out.append("     *\n");
+        out.append("     * @param dirigent The dirigent providing the formatters.\n");
+        out.append("     */\n");
+        out.append("    public ").append(className).append("(StringBuilderDirigent dirigent)\n");
+        out.append("    {\n");
+        out.append("        super(dirigent, SOURCES);\n");
+        out.append(bindings);
+        out.append("    }\n");
+        out.append(methods);
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Generates the method composing a message and the fields of its macros.
+     *
+     * @param methods The builder of the methods.
+     * @param fields The builder of the macro fields.
+     * @param bindings The builder of the constructor binding the macros.
+     * @param message The index of the message.
+     * @param name The name of the method.
+     * @param key The key of the message.
+     * @param source The source message.
+     */
+    private static void generateMethod(StringBuilder methods, StringBuilder fields, StringBuilder bindings, int message,
+                                       String name, String key, String source)
+    {
+        final List<Element> elements = Parser.parse(source);
+
+        methods.append('\n');
+        methods.append("    /**\n");
+        methods.append("     * Composes the message <code>");
+        appendComment(methods, key);
+        methods.append("</code>: <code>");
+        appendComment(methods, source);
+        methods.append("</code>\n");
+        methods.append("     *\n");
+        methods.append("     * @param context The compose context.\n");
+        methods.append("     * @param inputs The message input parameters.\n");
+        methods.append("     *\n");
+        methods.append("     * @return the composed message.\n");
+        methods.append("     */\n");
+        methods.append("    public String ").append(name).append("(Context context, Object... inputs)\n");
+        methods.append("    {\n");
+        methods.append("        if (isInterpreted())\n");
+        methods.append("        {\n");
+        methods.append("            return interpret(").append(message).append(", context, inputs);\n");
+        methods.append("        }\n");
+
+        int capacity = 0;
+        boolean hasMacros = false;
+        for (Element element : elements)
+        {
+            if (element instanceof Text)
+            {
+                capacity += ((Text)element).getText().length();
+            }
+            else
+            {
+                capacity += MACRO_CAPACITY;
+                hasMacros = true;
+            }
+        }
+        if (!hasMacros)
+        {
+            StringBuilder text = new StringBuilder(capacity);
+            for (Element element : elements)
+            {
+                text.append(((Text)element).getText());
+            }
+            methods.append("        return ");
+            appendLiteral(methods, text.toString());
+            methods.append(";\n");
+            methods.append("    }\n");
+            return;
+        }
+
+        methods.append("        final StringBuilder out = new StringBuilder(").append(capacity).append(");\n");
+        methods.append("        int i = 0;\n");
+        for (int e = 0; e < elements.size(); e++)
+        {
+            Element element = elements.get(e);
+            if (element instanceof Text)
+            {
+                methods.append("        out.append(");
+                appendLiteral(methods, ((Text)element).getText());
+                methods.append(");\n");
+                continue;
+            }
+            String field = "m" + message + "_" + e;
+            fields.append("    private final CompiledMacro ").append(field).append(";\n");
+            bindings.append("        ").append(field).append(" = macro(").append(message).append(", ").append(e)
+                    .append(");\n");
+            methods.append("        if ((i = ").append(field).append(".append(out, context, inputs, i)) < 0)\n");
+            methods.append("        {\n");
+            methods.append("            return interpret(").append(message).append(", context, inputs);\n");
+            methods.append("        }\n");
+        }
+        methods.append("        return out.toString();\n");
+        methods.append("    }\n");
+    }
+
+    /**
+     * Converts a message key into a method name. The parts of the key separated by characters which aren't allowed in
+     * a Java identifier are joined in camel case, e.g. {@code player.join-message} becomes {@code playerJoinMessage}.
+     * Names which aren't valid or are used by {@link CompiledMessages} are prefixed with an underscore.
+     *
+     * @param key The message key.
+     *
+     * @return the method name.
+     */
+    public static String methodName(String key)
+    {
+        final StringBuilder name = new StringBuilder(key.length());
+        boolean upper = false;
+        for (int i = 0; i < key.length(); i++)
+        {
+            char c = key.charAt(i);
+            if (!Character.isJavaIdentifierPart(c))
+            {
+                upper = name.length() != 0;
+                continue;
+            }
+            name.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0)) || RESERVED.contains(
+            name.toString()))
+        {
+            name.insert(0, '_');
+        }
+        return name.toString();
+    }
+
+    /**
+     * Appends a string as a Java string literal.
+     *
+     * @param out The builder.
+     * @param s The string.
+     */
+    private static void appendLiteral(StringBuilder out, String s)
+    {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e)
+                    {
+                        appendUnicodeEscape(out, c);
+                    }
+                    else
+                    {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Appends a string to a doc comment, escaping the characters which would end the comment or be interpreted as HTML,
+     * doc tags or unicode escapes.
+     *
+     * @param out The builder.
+     * @param s The string.
+     */
+    private static void appendComment(StringBuilder out, String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == '&' || c == '<' || c == '>' || c == '@' || c == '\\' || c == '/' || c < 0x20 || c > 0x7e)
+            {
+                out.append("&#").append((int)c).append(';');
+            }
+            else
+            {
+                out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Appends a unicode escape of a character.
+     *
+     * @param out The builder.
+     * @param c The character.
+     */
+    private static void appendUnicodeEscape(StringBuilder out, char c)
+    {
+        String hex = Integer.toHexString(c);
+        out.append("\\u");
+        for (int i = hex.length(); i < 4; i++)
+        {
+            out.append('0');
+        }
+        out.append(hex);
+    }
+}
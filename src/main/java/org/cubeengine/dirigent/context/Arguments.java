@@ -25,12 +25,20 @@ package org.cubeengine.dirigent.context;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
 
 import static java.util.Collections.*;
 
 /**
  * A class holding all arguments of a single {@link org.cubeengine.dirigent.parser.element.Macro}.
  * Furthermore it provides a few static helper methods to create a new instance.
+ *
+ * Argument values may be nested messages, e.g. the texts of the branches of a formatter selecting a text. These are
+ * parsed by {@link #getTemplate(String)} on first use and kept with the arguments, so the arguments of a compiled
+ * {@link Template} parse their nested messages only once.
  */
 public class Arguments
 {
@@ -44,7 +52,18 @@ public class Arguments
     private final Map<String, String> parameters;
 
     /**
-     * Constructs a new instance with the given values and parameters.
+     * The parsed nested messages by parameter name or value index, created on first use.
+     */
+    private volatile ConcurrentMap<Object, Template> templates;
+
+    /**
+     * The cached hash code or {@code 0} if it isn't computed yet.
+     */
+    private int hash;
+
+    /**
+     * Constructs a new instance with the given values and parameters. The values and parameters must not be modified
+     * afterwards.
      *
      * @param values the list of values
      * @param params the list of parameters (name-value pairs)
@@ -65,6 +84,16 @@ public class Arguments
         return values;
     }
 
+    /**
+     * Returns the named parameters.
+     *
+     * @return the parameters (name-value pairs)
+     */
+    public Map<String, String> getParameters()
+    {
+        return unmodifiableMap(parameters);
+    }
+
     /**
      * Returns the parameter value for the given name or {@code null} if not found.
      *
@@ -124,6 +153,70 @@ public class Arguments
         return def;
     }
 
+    /**
+     * Returns the parameter value for the given name parsed as a nested message or {@code null} if not found. The
+     * value is only parsed once. Macros in the value have to escape their closing brace and colons, e.g.
+     * {@code {plural:other=# items of {0\:string\}}}.
+     *
+     * @param name the name of the parameter
+     *
+     * @return the parsed value.
+     */
+    public Template getTemplate(String name)
+    {
+        final String value = get(name);
+        return value == null ? null : getTemplate(name.toLowerCase(), value);
+    }
+
+    /**
+     * Returns the unnamed value at a position parsed as a nested message or {@code null} if the position is not within
+     * bounds. The value is only parsed once.
+     *
+     * @param i the position
+     *
+     * @return the parsed value.
+     */
+    public Template getTemplate(int i)
+    {
+        final String value = get(i);
+        return value == null ? null : getTemplate(i, value);
+    }
+
+    /**
+     * Returns the parsed nested message of a value, parsing it on first use.
+     *
+     * @param key The parameter name or value index.
+     * @param value The value.
+     *
+     * @return the parsed value.
+     */
+    private Template getTemplate(Object key, String value)
+    {
+        ConcurrentMap<Object, Template> templates = this.templates;
+        if (templates == null)
+        {
+            synchronized (this)
+            {
+                templates = this.templates;
+                if (templates == null)
+                {
+                    templates = this.templates = new ConcurrentHashMap<Object, Template>(4, 0.75f, 1);
+                }
+            }
+        }
+        Template template = templates.get(key);
+        if (template == null)
+        {
+            template = new Template(value, Parser.parse(value));
+            Template previous = templates.putIfAbsent(key, template);
+            if (previous != null)
+            {
+                template = previous;
+            }
+        }
+        return template;
+    }
+
     /**
      * Returns whether the list of values contains a given value. This might be used to check for
      * specific flags.
@@ -197,8 +290,13 @@ public class Arguments
     @Override
     public int hashCode()
     {
-        int result = values.hashCode();
-        result = 31 * result + parameters.hashCode();
+        int result = hash;
+        if (result == 0)
+        {
+            result = values.hashCode();
+            result = 31 * result + parameters.hashCode();
+            hash = result;
+        }
         return result;
     }
 
@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.context;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A factory creating interned {@link Context}s. Equal contexts (same properties mapped to the identical values) are
+ * only created once and reused afterwards, so an application serving a limited set of locales or time zones doesn't
+ * need to create a new context per message.
+ *
+ * As every context returned by this factory is the canonical instance of its properties, these contexts can be
+ * compared by reference and used as identity keys of downstream caches. The factory is thread safe.
+ */
+public class ContextFactory
+{
+    /**
+     * The interned contexts. Each context maps to itself.
+     */
+    private final ConcurrentMap<Context, Context> contexts = new ConcurrentHashMap<Context, Context>();
+    /**
+     * The interned contexts only holding a locale, to look them up without creating a context first.
+     */
+    private final ConcurrentMap<Locale, Context> localeContexts = new ConcurrentHashMap<Locale, Context>();
+
+    /**
+     * Returns the canonical instance of the given context. If no equal context was interned yet, the given context
+     * will become the canonical instance.
+     *
+     * @param context The context to intern.
+     *
+     * @return the canonical context.
+     */
+    public Context intern(Context context)
+    {
+        final Context existing = contexts.putIfAbsent(context, context);
+        if (existing == null)
+        {
+            return context;
+        }
+        return existing;
+    }
+
+    /**
+     * Returns the interned context holding the specified {@link Locale}. Locales are compared by equality, so equal
+     * locales will result in the same context.
+     *
+     * @param locale The locale of the context.
+     *
+     * @return the interned context.
+     */
+    public Context create(Locale locale)
+    {
+        Context context = localeContexts.get(locale);
+        if (context == null)
+        {
+            context = intern(Contexts.createContext(locale));
+            final Context existing = localeContexts.putIfAbsent(locale, context);
+            if (existing != null)
+            {
+                return existing;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Returns the interned context with the given property mappings.
+     *
+     * @param mappings The property mappings for the context.
+     *
+     * @return the interned context.
+     */
+    public Context create(PropertyMapping<?>... mappings)
+    {
+        return create(Arrays.asList(mappings));
+    }
+
+    /**
+     * Returns the interned context with the given property mappings.
+     *
+     * @param mappings The property mappings for the context.
+     *
+     * @return the interned context.
+     */
+    public Context create(Collection<PropertyMapping<?>> mappings)
+    {
+        return intern(Contexts.createContext(mappings));
+    }
+
+    /**
+     * Pre-builds the contexts of the given locales, so they don't have to be created while composing messages.
+     *
+     * @param locales The locales to create contexts for.
+     *
+     * @return fluent interface.
+     */
+    public ContextFactory preload(Locale... locales)
+    {
+        for (final Locale locale : locales)
+        {
+            create(locale);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of interned contexts.
+     *
+     * @return the number of contexts.
+     */
+    public int size()
+    {
+        return contexts.size();
+    }
+
+    /**
+     * Removes all interned contexts. Contexts created afterwards won't be identical to the ones created before.
+     */
+    public void clear()
+    {
+        localeContexts.clear();
+        contexts.clear();
+    }
+}
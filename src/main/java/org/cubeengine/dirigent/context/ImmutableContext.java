@@ -31,10 +31,15 @@ import java.util.Map;
 public class ImmutableContext implements Context
 {
     private final Map<ContextProperty<?>, Object> properties;
+    /**
+     * The hash code of the properties. It's calculated once as the properties can't change.
+     */
+    private final int hash;
 
     private ImmutableContext(Map<ContextProperty<?>, Object> properties)
     {
         this.properties = properties;
+        this.hash = properties.hashCode();
     }
 
     public <K> K get(ContextProperty<K> key)
@@ -78,20 +83,20 @@ public class ImmutableContext implements Context
         {
             return true;
         }
-        if (!(o instanceof Context))
+        if (!(o instanceof ImmutableContext))
         {
             return false;
         }
 
         final ImmutableContext context = (ImmutableContext)o;
 
-        return properties.equals(context.properties);
+        return hash == context.hash && properties.equals(context.properties);
     }
 
     @Override
     public int hashCode()
     {
-        return properties.hashCode();
+        return hash;
     }
 
     private static Map<ContextProperty<?>, Object> cloneProperties(Map<ContextProperty<?>, Object> properties)
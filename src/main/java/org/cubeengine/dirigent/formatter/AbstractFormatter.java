@@ -22,6 +22,7 @@
  */
 package org.cubeengine.dirigent.formatter;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashSet;
@@ -115,6 +116,38 @@ public abstract class AbstractFormatter<T> extends Formatter<T>
         return (Class<T>)Object.class;
     }
 
+    /**
+     * Checks whether a method with the given name is declared by the given class or one of its super classes below the
+     * base class. Formatters use this to skip their direct formatting if a subclass customized the text conversion.
+     *
+     * @param type The class to check.
+     * @param base The class declaring the original method.
+     * @param name The name of the method.
+     *
+     * @return whether the method is overridden.
+     */
+    static boolean overrides(Class<?> type, Class<?> base, String name)
+    {
+        try
+        {
+            for (Class<?> c = type; c != null && c != base; c = c.getSuperclass())
+            {
+                for (Method method : c.getDeclaredMethods())
+                {
+                    if (!method.isBridge() && name.equals(method.getName()))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        catch (SecurityException e)
+        {
+            return true;
+        }
+    }
+
     @Override
     public boolean isApplicable(Object input)
     {
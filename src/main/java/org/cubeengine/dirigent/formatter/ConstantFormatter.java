@@ -25,6 +25,7 @@ package org.cubeengine.dirigent.formatter;
 import org.cubeengine.dirigent.parser.component.Component;
 import org.cubeengine.dirigent.context.Context;
 import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Contexts;
 
 /**
  * Indicates a specific Formatter which doesn't need any message input parameters. Instead it's used for constant
@@ -53,4 +54,55 @@ public abstract class ConstantFormatter extends Formatter<Void>
      * @return the resulting Component
      */
     public abstract Component format(Context context, Arguments args);
+
+    @Override
+    protected final boolean appendFormatted(Void input, Context context, Arguments args, StringBuilder out)
+    {
+        return appendFormatted(context, args, out);
+    }
+
+    /**
+     * Formats the constant expression and appends the result directly to the given builder. By default direct
+     * formatting isn't supported.
+     *
+     * @param context The compose context.
+     * @param args The arguments of the macro.
+     * @param out The builder to append the formatted expression to.
+     *
+     * @return whether the expression was appended.
+     * @see Formatter#appendFormatted(Object, Context, Arguments, StringBuilder)
+     */
+    protected boolean appendFormatted(Context context, Arguments args, StringBuilder out)
+    {
+        return false;
+    }
+
+    /**
+     * Returns whether this formatter is pure. The output of a pure formatter only depends on the macro arguments but
+     * neither on the compose context nor on anything else. Furthermore a pure formatter must be applicable to every
+     * input. Macros of pure formatters are folded into static text when a message is compiled.
+     *
+     * @return whether the formatter is pure.
+     */
+    public boolean isPure()
+    {
+        return false;
+    }
+
+    /**
+     * Formats the constant expression once ahead of composing a message. This is only possible if the formatter is
+     * {@link #isPure() pure} and doesn't have any {@link PostProcessor}s attached.
+     *
+     * @param args The arguments of the macro.
+     *
+     * @return the resulting Component or {@code null} if the expression can't be folded.
+     */
+    public final Component fold(Arguments args)
+    {
+        if (!isPure() || hasPostProcessors())
+        {
+            return null;
+        }
+        return format(Contexts.EMPTY, args);
+    }
 }
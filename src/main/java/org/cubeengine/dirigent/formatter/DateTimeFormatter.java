@@ -26,6 +26,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.TimeZone;
 import org.cubeengine.dirigent.parser.component.Component;
 import org.cubeengine.dirigent.context.Context;
 import org.cubeengine.dirigent.context.Contexts;
@@ -83,6 +84,11 @@ public class DateTimeFormatter extends AbstractFormatter<Date>
      */
     private final Mode mode;
 
+    /**
+     * The cached {@link DateFormat}s.
+     */
+    private final FormatCache<DateFormat> formats = new FormatCache<DateFormat>();
+
     /**
      * Constructor. Initializes this formatter with a few default names and the mode {@link Mode#DATE_TIME}.
      */
@@ -109,6 +115,13 @@ public class DateTimeFormatter extends AbstractFormatter<Date>
         return new Text(parseDateToString(input, context, args));
     }
 
+    @Override
+    protected boolean appendFormatted(Date input, Context context, Arguments args, StringBuilder out)
+    {
+        out.append(parseDateToString(input, context, args));
+        return true;
+    }
+
     /**
      * Parses the given date to a string depending on the context.
      *
@@ -120,23 +133,30 @@ public class DateTimeFormatter extends AbstractFormatter<Date>
      */
     protected String parseDateToString(Date date, Context context, Arguments args)
     {
-        final DateFormat dateFormat = parseFormatter(context, args);
-        dateFormat.setTimeZone(context.get(Contexts.TIMEZONE));
+        final Locale locale = context.get(LOCALE);
+        final TimeZone timeZone = context.get(Contexts.TIMEZONE);
+
+        DateFormat dateFormat = formats.get(locale, timeZone, args);
+        if (dateFormat == null)
+        {
+            dateFormat = parseFormatter(locale, args);
+            dateFormat.setTimeZone(timeZone);
+            formats.put(locale, timeZone, args, dateFormat);
+        }
         return dateFormat.format(date);
     }
 
     /**
      * Parses the {@link DateFormat} to use from the context arguments.
      *
-     * @param context The context.
+     * @param locale The locale.
      * @param args The arguments of the macro.
      *
      * @return the {@link DateFormat}.
      */
-    private DateFormat parseFormatter(Context context, Arguments args)
+    private DateFormat parseFormatter(Locale locale, Arguments args)
     {
         final String format = args.get(FORMAT_PARAM_NAME);
-        final Locale locale = context.get(LOCALE);
         if (format != null)
         {
             return new SimpleDateFormat(format, locale);
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.formatter;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.cubeengine.dirigent.context.Arguments;
+
+/**
+ * A small cache of format objects like {@link java.text.NumberFormat}s, which are expensive to create. As these objects
+ * are usually not thread safe, every thread has its own cache. The formats are identified by their locale, a
+ * variant (e.g. a currency or time zone) and the macro arguments. Each thread caches at most {@link #MAX_SIZE} formats,
+ * evicting the least recently used ones.
+ *
+ * @param <F> the format type
+ */
+final class FormatCache<F>
+{
+    /**
+     * The maximum number of formats cached per thread.
+     */
+    static final int MAX_SIZE = 32;
+
+    /**
+     * The formats of the current thread.
+     */
+    private final ThreadLocal<Map<Key, F>> formats = new ThreadLocal<Map<Key, F>>()
+    {
+        @Override
+        protected Map<Key, F> initialValue()
+        {
+            return new LinkedHashMap<Key, F>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, F> eldest)
+                {
+                    return size() > MAX_SIZE;
+                }
+            };
+        }
+    };
+
+    /**
+     * Returns the cached format of the current thread.
+     *
+     * @param locale The locale of the format.
+     * @param variant The variant of the format. May be null.
+     * @param args The macro arguments.
+     *
+     * @return the cached format or {@code null}.
+     */
+    F get(Locale locale, Object variant, Arguments args)
+    {
+        return formats.get().get(new Key(locale, variant, args));
+    }
+
+    /**
+     * Caches the format for the current thread.
+     *
+     * @param locale The locale of the format.
+     * @param variant The variant of the format. May be null.
+     * @param args The macro arguments.
+     * @param format The format.
+     */
+    void put(Locale locale, Object variant, Arguments args, F format)
+    {
+        formats.get().put(new Key(locale, variant, args), format);
+    }
+
+    /**
+     * The key of a cached format.
+     */
+    private static final class Key
+    {
+        private final Locale locale;
+        private final Object variant;
+        private final Arguments args;
+        private final int hash;
+
+        Key(Locale locale, Object variant, Arguments args)
+        {
+            this.locale = locale;
+            this.variant = variant;
+            this.args = args;
+
+            int hash = locale == null ? 0 : locale.hashCode();
+            hash = 31 * hash + (variant == null ? 0 : variant.hashCode());
+            hash = 31 * hash + args.hashCode();
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            final Key key = (Key)o;
+
+            return hash == key.hash && equal(locale, key.locale) && equal(variant, key.variant) && (args == key.args
+                || args.equals(key.args));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        private static boolean equal(Object a, Object b)
+        {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
@@ -22,9 +22,11 @@
  */
 package org.cubeengine.dirigent.formatter;
 
-import java.util.ArrayList;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.cubeengine.dirigent.parser.component.Component;
 import org.cubeengine.dirigent.context.Context;
 import org.cubeengine.dirigent.context.Arguments;
@@ -41,9 +43,15 @@ import org.cubeengine.dirigent.context.Arguments;
 public abstract class Formatter<T>
 {
     /**
-     * The attached {@link PostProcessor}s.
+     * The attached {@link PostProcessor}s. Post processors may be added while the formatter is used concurrently.
      */
-    private List<PostProcessor> postProcessors = new ArrayList<PostProcessor>();
+    private final List<PostProcessor> postProcessors = new CopyOnWriteArrayList<PostProcessor>();
+
+    /**
+     * Whether {@link #appendFormatted(Object, Context, Arguments, StringBuilder)} is declared by the same class as the
+     * format method or by a subclass of it, so it appends what the format method would return.
+     */
+    private final boolean direct = isDirect(getClass());
 
     /**
      * Returns true if given parameter can be formatted with this Formatter
@@ -87,6 +95,100 @@ public abstract class Formatter<T>
         return result;
     }
 
+    /**
+     * Formats the input parameter and appends the result directly to the given builder, without creating an
+     * intermediate {@link Component}. This is only possible if the formatter supports it and no {@link PostProcessor}
+     * is attached. Otherwise nothing is appended and the caller has to fall back to
+     * {@link #process(Object, Context, Arguments)}. The direct formatting is skipped as well if a subclass overrides
+     * the format method without overriding {@link #appendFormatted(Object, Context, Arguments, StringBuilder)}.
+     *
+     * @param input The message input parameter to format.
+     * @param context The compose context.
+     * @param args The arguments of the macro.
+     * @param out The builder to append the formatted input to.
+     *
+     * @return whether the input was appended.
+     */
+    public final boolean processTo(T input, Context context, Arguments args, StringBuilder out)
+    {
+        return direct && postProcessors.isEmpty() && appendFormatted(input, context, args, out);
+    }
+
+    /**
+     * Checks whether a formatter class declares the appendFormatted method in the same class as the format method or
+     * in a subclass of it. Only the names are compared, so overloads like the ones of {@link ConstantFormatter} are
+     * covered as well.
+     *
+     * @param type The class of the formatter.
+     *
+     * @return whether the direct formatting may be used.
+     */
+    private static boolean isDirect(Class<?> type)
+    {
+        try
+        {
+            for (Class<?> c = type; c != null && c != Formatter.class; c = c.getSuperclass())
+            {
+                boolean declaresFormat = false;
+                for (Method method : c.getDeclaredMethods())
+                {
+                    if (method.isBridge() || Modifier.isStatic(method.getModifiers())
+                        || Modifier.isPrivate(method.getModifiers()))
+                    {
+                        continue;
+                    }
+                    if ("appendFormatted".equals(method.getName()))
+                    {
+                        return true;
+                    }
+                    if ("format".equals(method.getName()))
+                    {
+                        declaresFormat = true;
+                    }
+                }
+                if (declaresFormat)
+                {
+                    return false;
+                }
+            }
+            return false;
+        }
+        catch (SecurityException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Formats the input parameter and appends the result directly to the given builder. A formatter supporting this
+     * must append exactly the text of the {@link org.cubeengine.dirigent.parser.component.TextComponent} returned by
+     * {@link #format(Object, Context, Arguments)}. This method is only used if it is declared by the class declaring
+     * the format method or by a subclass of it, so subclasses overriding just the format method of such a formatter
+     * keep working. By default direct formatting isn't supported.
+     *
+     * @param input The message input parameter to format.
+     * @param context The compose context.
+     * @param args The arguments of the macro.
+     * @param out The builder to append the formatted input to.
+     *
+     * @return whether the input was appended.
+     */
+    protected boolean appendFormatted(T input, Context context, Arguments args, StringBuilder out)
+    {
+        return false;
+    }
+
+    /**
+     * Prepares the arguments of a macro handled by this formatter when its message is compiled, e.g. by parsing nested
+     * messages with {@link Arguments#getTemplate(String)}, so this doesn't happen while composing the message. By
+     * default nothing is prepared.
+     *
+     * @param args The arguments of the macro.
+     */
+    public void prepare(Arguments args)
+    {
+    }
+
     /**
      * Adds a PostProcessor to this Formatter
      *
@@ -99,6 +201,29 @@ public abstract class Formatter<T>
         return this;
     }
 
+    /**
+     * Returns whether any {@link PostProcessor} is attached to this formatter.
+     *
+     * @return whether there are post processors.
+     */
+    final boolean hasPostProcessors()
+    {
+        return !postProcessors.isEmpty();
+    }
+
+    /**
+     * Returns whether this formatter may block while formatting, e.g. because it does I/O. Macros handled by a blocking
+     * formatter are formatted concurrently on the executor passed to
+     * {@link org.cubeengine.dirigent.TemplateDirigent#composeAsync(java.util.concurrent.Executor, Context,
+     * org.cubeengine.dirigent.parser.Template, Object...)}.
+     *
+     * @return whether this formatter may block.
+     */
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
     /**
      * Returns the names of this formatter
      *
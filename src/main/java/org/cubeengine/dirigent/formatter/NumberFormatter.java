@@ -24,6 +24,7 @@ package org.cubeengine.dirigent.formatter;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
 import java.text.NumberFormat;
 import java.util.Currency;
 import java.util.Locale;
@@ -70,11 +71,34 @@ public class NumberFormatter extends AbstractFormatter<Number>
      */
     static final String PERCENT_MODE_FLAG = "percent";
 
+    /**
+     * The buffer of the current thread to format numbers into.
+     */
+    private static final ThreadLocal<StringBuffer> BUFFER = new ThreadLocal<StringBuffer>()
+    {
+        @Override
+        protected StringBuffer initialValue()
+        {
+            return new StringBuffer();
+        }
+    };
+
     /**
      * The default mode of this number formatter.
      */
     private final Mode defaultMode;
 
+    /**
+     * The cached {@link NumberFormat}s.
+     */
+    private final FormatCache<NumberFormat> formats = new FormatCache<NumberFormat>();
+
+    /**
+     * Whether {@link #parseNumberToString(Number, Context, Arguments)} isn't overridden, so numbers can be formatted
+     * into the buffer of the current thread without creating a string first.
+     */
+    private final boolean plain = !overrides(getClass(), NumberFormatter.class, "parseNumberToString");
+
     /**
      * Constructor. Initializes this formatter with a few default names.
      */
@@ -101,6 +125,22 @@ public class NumberFormatter extends AbstractFormatter<Number>
         return new Text(parseNumberToString(input, context, args));
     }
 
+    @Override
+    protected boolean appendFormatted(Number input, Context context, Arguments args, StringBuilder out)
+    {
+        if (!plain)
+        {
+            out.append(parseNumberToString(input, context, args));
+            return true;
+        }
+
+        final StringBuffer buffer = BUFFER.get();
+        buffer.setLength(0);
+        getFormat(context, args).format(input, buffer, new FieldPosition(0));
+        out.append(buffer);
+        return true;
+    }
+
     /**
      * Parses the given number to a string depending on the context.
      *
@@ -112,29 +152,46 @@ public class NumberFormatter extends AbstractFormatter<Number>
      */
     protected String parseNumberToString(Number number, Context context, Arguments args)
     {
-        final NumberFormat numberFormat = parseFormatter(context, args);
+        return getFormat(context, args).format(number);
+    }
 
+    /**
+     * Returns the cached {@link NumberFormat} of the current thread for the context and arguments.
+     *
+     * @param context The context to use.
+     * @param args The arguments of the macro.
+     *
+     * @return the {@link NumberFormat}.
+     */
+    private NumberFormat getFormat(Context context, Arguments args)
+    {
+        final Locale locale = context.get(LOCALE);
         final Currency currency = context.get(Contexts.CURRENCY);
-        if (currency != null)
+
+        NumberFormat numberFormat = formats.get(locale, currency, args);
+        if (numberFormat == null)
         {
-            numberFormat.setCurrency(currency);
+            numberFormat = parseFormatter(locale, args);
+            if (currency != null)
+            {
+                numberFormat.setCurrency(currency);
+            }
+            formats.put(locale, currency, args, numberFormat);
         }
-
-        return numberFormat.format(number);
+        return numberFormat;
     }
 
     /**
      * Parses the {@link NumberFormat} to use from the context arguments.
      *
-     * @param context The context.
+     * @param locale The locale.
      * @param args The arguments of the macro.
      *
      * @return the {@link NumberFormat}.
      */
-    private NumberFormat parseFormatter(Context context, Arguments args)
+    private NumberFormat parseFormatter(Locale locale, Arguments args)
     {
         final String format = args.get(FORMAT_PARAM_NAME);
-        final Locale locale = context.get(LOCALE);
         if (format != null)
         {
             return new DecimalFormat(format, DecimalFormatSymbols.getInstance(locale));
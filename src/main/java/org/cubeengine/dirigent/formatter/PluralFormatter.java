@@ -0,0 +1,456 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.formatter;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.cubeengine.dirigent.TemplateDirigent;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.parser.MacroResolutionState;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.component.Component;
+import org.cubeengine.dirigent.parser.component.ComponentGroup;
+import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
+import org.cubeengine.dirigent.parser.element.Element;
+import org.cubeengine.dirigent.parser.element.Macro;
+
+import static org.cubeengine.dirigent.context.Contexts.LOCALE;
+
+/**
+ * The plural formatter selects a text depending on the plural category of a {@link Number}, e.g.
+ * {@code {plural:0=no items:one=# item:other=# items}}. The parameters named after a {@link PluralRules.Category} hold
+ * the text of the category, the parameters named after an integer the text of exactly this number, which takes
+ * precedence. The {@code other} text is used if there is no text of the category. Every {@code #} of the text is
+ * replaced by the number formatted for the locale, {@code \#} is kept as {@code #}.
+ *
+ * The texts are nested messages, see {@link Arguments#getTemplate(String)}. If the formatter was created with a
+ * {@link TemplateDirigent}, their macros are resolved by it with the number as the only input parameter, e.g.
+ * {@code {plural:one=one item:other={number\:format=#,##0.0\}\: many items}}. Otherwise they are unresolvable.
+ *
+ * The plural rules of the locale are selected by {@link PluralRules#forLocale(Locale)}. The texts of a macro are
+ * parsed once into a {@link Choice} when the message is compiled, so formatting only selects the category and appends
+ * the parts of the text.
+ */
+public class PluralFormatter extends AbstractFormatter<Number>
+{
+    /**
+     * The maximum number of cached choices. The cache is cleared if it grows any further.
+     */
+    static final int MAX_CHOICES = 1024;
+
+    /**
+     * The placeholder of the number.
+     */
+    private static final char NUMBER = '#';
+    /**
+     * The escape character of the placeholder.
+     */
+    private static final char ESCAPE = '\\';
+
+    /**
+     * The dirigent resolving the macros of the texts or {@code null}.
+     */
+    private final TemplateDirigent<?> dirigent;
+
+    /**
+     * The parsed choices by macro arguments.
+     */
+    private final ConcurrentMap<Arguments, Choice> choices = new ConcurrentHashMap<Arguments, Choice>();
+
+    /**
+     * The cached {@link NumberFormat}s.
+     */
+    private final FormatCache<NumberFormat> formats = new FormatCache<NumberFormat>();
+
+    /**
+     * Constructor. Initializes this formatter with the default name. Macros in the texts are unresolvable.
+     */
+    public PluralFormatter()
+    {
+        this("plural");
+    }
+
+    /**
+     * Constructor. Macros in the texts are unresolvable.
+     *
+     * @param names The names triggering this formatter.
+     */
+    public PluralFormatter(String... names)
+    {
+        this(null, names);
+    }
+
+    /**
+     * Constructor. Initializes this formatter with the default name.
+     *
+     * @param dirigent The dirigent resolving the macros of the texts.
+     */
+    public PluralFormatter(TemplateDirigent<?> dirigent)
+    {
+        this(dirigent, "plural");
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dirigent The dirigent resolving the macros of the texts. May be null.
+     * @param names The names triggering this formatter.
+     */
+    public PluralFormatter(TemplateDirigent<?> dirigent, String... names)
+    {
+        super(names);
+        this.dirigent = dirigent;
+    }
+
+    @Override
+    public void prepare(Arguments args)
+    {
+        getChoice(args);
+    }
+
+    @Override
+    protected Component format(Number input, Context context, Arguments args)
+    {
+        final Locale locale = context.get(LOCALE);
+        final Branch branch = getChoice(args).select(input, PluralRules.forLocale(locale));
+        if (branch == null)
+        {
+            return new Text(formatNumber(input, locale));
+        }
+        if (branch.macros == 0)
+        {
+            StringBuilder out = new StringBuilder();
+            appendTexts(branch, input, locale, out);
+            return new Text(out.toString());
+        }
+
+        final Component[] components = new Component[branch.parts.length];
+        String number = null;
+        for (int i = 0; i < components.length; i++)
+        {
+            final Object part = branch.parts[i];
+            if (part instanceof String[])
+            {
+                if (number == null)
+                {
+                    number = formatNumber(input, locale);
+                }
+                components[i] = new Text(join((String[])part, number));
+            }
+            else if (dirigent != null)
+            {
+                components[i] = dirigent.resolve(context, (Template)part, input);
+            }
+            else
+            {
+                components[i] = new UnresolvableMacro((Macro)((Template)part).getElements().get(0), input,
+                                                      MacroResolutionState.UNKNOWN_NAME);
+            }
+        }
+        return new ComponentGroup(components);
+    }
+
+    @Override
+    protected boolean appendFormatted(Number input, Context context, Arguments args, StringBuilder out)
+    {
+        final Locale locale = context.get(LOCALE);
+        final Branch branch = getChoice(args).select(input, PluralRules.forLocale(locale));
+        if (branch == null)
+        {
+            out.append(formatNumber(input, locale));
+            return true;
+        }
+        if (branch.macros != 0)
+        {
+            return false;
+        }
+        appendTexts(branch, input, locale, out);
+        return true;
+    }
+
+    /**
+     * Appends the texts of a branch without macros with the number substituted.
+     *
+     * @param branch The branch.
+     * @param number The number.
+     * @param locale The locale.
+     * @param out The builder.
+     */
+    private void appendTexts(Branch branch, Number number, Locale locale, StringBuilder out)
+    {
+        String formatted = null;
+        for (Object part : branch.parts)
+        {
+            final String[] text = (String[])part;
+            out.append(text[0]);
+            for (int i = 1; i < text.length; i++)
+            {
+                if (formatted == null)
+                {
+                    formatted = formatNumber(number, locale);
+                }
+                out.append(formatted).append(text[i]);
+            }
+        }
+    }
+
+    /**
+     * Formats the number for the locale.
+     *
+     * @param number The number.
+     * @param locale The locale.
+     *
+     * @return the formatted number.
+     */
+    private String formatNumber(Number number, Locale locale)
+    {
+        NumberFormat format = formats.get(locale, null, Arguments.NONE);
+        if (format == null)
+        {
+            format = NumberFormat.getInstance(locale);
+            formats.put(locale, null, Arguments.NONE, format);
+        }
+        return format.format(number);
+    }
+
+    /**
+     * Returns the parsed choice of the macro arguments.
+     *
+     * @param args The arguments of the macro.
+     *
+     * @return the choice.
+     */
+    private Choice getChoice(Arguments args)
+    {
+        Choice choice = choices.get(args);
+        if (choice == null)
+        {
+            if (choices.size() >= MAX_CHOICES)
+            {
+                choices.clear();
+            }
+            choice = new Choice(args);
+            choices.put(args, choice);
+        }
+        return choice;
+    }
+
+    /**
+     * Joins the parts of a text with the formatted number.
+     *
+     * @param parts The parts of the text.
+     * @param number The formatted number.
+     *
+     * @return the text.
+     */
+    private static String join(String[] parts, String number)
+    {
+        if (parts.length == 1)
+        {
+            return parts[0];
+        }
+        StringBuilder text = new StringBuilder(parts[0]);
+        for (int i = 1; i < parts.length; i++)
+        {
+            text.append(number).append(parts[i]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Splits a text at the unescaped number placeholders.
+     *
+     * @param text The text.
+     *
+     * @return the parts of the text.
+     */
+    private static String[] split(String text)
+    {
+        List<String> parts = new ArrayList<String>(2);
+        StringBuilder part = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == ESCAPE && i + 1 < text.length() && text.charAt(i + 1) == NUMBER)
+            {
+                part.append(NUMBER);
+                i++;
+            }
+            else if (c == NUMBER)
+            {
+                parts.add(part.toString());
+                part.setLength(0);
+            }
+            else
+            {
+                part.append(c);
+            }
+        }
+        parts.add(part.toString());
+        return parts.toArray(new String[parts.size()]);
+    }
+
+    /**
+     * The texts of a plural macro.
+     */
+    private static final class Choice
+    {
+        /**
+         * The texts by the ordinal of the category.
+         */
+        private final Branch[] categories = new Branch[PluralRules.Category.values().length];
+        /**
+         * The numbers having an own text.
+         */
+        private final long[] exact;
+        /**
+         * The texts of the numbers having an own text.
+         */
+        private final Branch[] exactBranches;
+
+        /**
+         * Constructor.
+         *
+         * @param args The arguments of the macro.
+         */
+        private Choice(Arguments args)
+        {
+            final Branch other = branchOf(args, PluralRules.Category.OTHER.getName());
+            for (PluralRules.Category category : PluralRules.Category.values())
+            {
+                final Branch branch = branchOf(args, category.getName());
+                categories[category.ordinal()] = branch == null ? other : branch;
+            }
+
+            final List<Long> numbers = new ArrayList<Long>();
+            final List<Branch> branches = new ArrayList<Branch>();
+            for (String name : args.getParameters().keySet())
+            {
+                try
+                {
+                    numbers.add(Long.parseLong(name));
+                    branches.add(branchOf(args, name));
+                }
+                catch (NumberFormatException ignored)
+                {
+                    // not an exact number
+                }
+            }
+            exact = new long[numbers.size()];
+            for (int i = 0; i < exact.length; i++)
+            {
+                exact[i] = numbers.get(i);
+            }
+            exactBranches = branches.toArray(new Branch[branches.size()]);
+        }
+
+        /**
+         * Returns the text of a parameter.
+         *
+         * @param args The arguments of the macro.
+         * @param name The name of the parameter.
+         *
+         * @return the text or {@code null} if there is no parameter of the name.
+         */
+        private static Branch branchOf(Arguments args, String name)
+        {
+            final Template template = args.getTemplate(name);
+            return template == null ? null : new Branch(template);
+        }
+
+        /**
+         * Selects the text of a number.
+         *
+         * @param number The number.
+         * @param rules The plural rules.
+         *
+         * @return the text or {@code null} if there is no text for the number.
+         */
+        private Branch select(Number number, PluralRules rules)
+        {
+            if (exact.length > 0)
+            {
+                final double value = number.doubleValue();
+                for (int i = 0; i < exact.length; i++)
+                {
+                    if (exact[i] == value)
+                    {
+                        return exactBranches[i];
+                    }
+                }
+            }
+            return categories[rules.select(number).ordinal()];
+        }
+    }
+
+    /**
+     * A text of a plural macro. The text elements are split at the number placeholders, the macros are wrapped into
+     * templates of their own, which are resolved with the number as input parameter.
+     */
+    private static final class Branch
+    {
+        /**
+         * The split texts as {@code String[]} and the macros as {@link Template}s in order.
+         */
+        private final Object[] parts;
+        /**
+         * The number of macros.
+         */
+        private final int macros;
+
+        /**
+         * Constructor.
+         *
+         * @param template The parsed text.
+         */
+        private Branch(Template template)
+        {
+            final List<Element> elements = template.getElements();
+            final Object[] parts = new Object[Math.max(1, elements.size())];
+            parts[0] = new String[]{""};
+            int macros = 0;
+            for (int i = 0; i < elements.size(); i++)
+            {
+                final Element element = elements.get(i);
+                if (element instanceof Text)
+                {
+                    parts[i] = split(((Text)element).getText());
+                }
+                else
+                {
+                    parts[i] = new Template(template.getSource(), Collections.singletonList(element));
+                    macros++;
+                }
+            }
+            this.parts = parts;
+            this.macros = macros;
+        }
+    }
+}
@@ -0,0 +1,467 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.formatter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The plural rules of a language, selecting the plural {@link Category} of a number like the cardinal rules of the
+ * Unicode CLDR. Every rule is a fixed integer predicate, so selecting a category only costs a few arithmetic operations.
+ * Numbers with a fraction are of the category {@link Category#OTHER}, only integral numbers are distinguished.
+ */
+public abstract class PluralRules
+{
+    /**
+     * The rules of languages without plural forms, e.g. Japanese or Chinese.
+     */
+    public static final PluralRules NONE = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            return Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of languages with a singular for one, e.g. English or German.
+     */
+    public static final PluralRules ONE_OTHER = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            return n == 1 ? Category.ONE : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of languages with a singular for zero and one, e.g. French or Portuguese.
+     */
+    public static final PluralRules ZERO_ONE_OTHER = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            return n <= 1 ? Category.ONE : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Russian, Ukrainian and Belarusian.
+     */
+    public static final PluralRules EAST_SLAVIC = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            final long mod10 = n % 10;
+            final long mod100 = n % 100;
+            if (mod10 == 1 && mod100 != 11)
+            {
+                return Category.ONE;
+            }
+            if (mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14))
+            {
+                return Category.FEW;
+            }
+            return Category.MANY;
+        }
+    };
+
+    /**
+     * The rules of Croatian, Serbian and Bosnian.
+     */
+    public static final PluralRules SOUTH_SLAVIC = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            final long mod10 = n % 10;
+            final long mod100 = n % 100;
+            if (mod10 == 1 && mod100 != 11)
+            {
+                return Category.ONE;
+            }
+            if (mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14))
+            {
+                return Category.FEW;
+            }
+            return Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Polish.
+     */
+    public static final PluralRules POLISH = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            if (n == 1)
+            {
+                return Category.ONE;
+            }
+            final long mod10 = n % 10;
+            final long mod100 = n % 100;
+            if (mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14))
+            {
+                return Category.FEW;
+            }
+            return Category.MANY;
+        }
+    };
+
+    /**
+     * The rules of Czech and Slovak.
+     */
+    public static final PluralRules CZECH = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            if (n == 1)
+            {
+                return Category.ONE;
+            }
+            return n >= 2 && n <= 4 ? Category.FEW : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Lithuanian.
+     */
+    public static final PluralRules LITHUANIAN = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            final long mod10 = n % 10;
+            final long mod100 = n % 100;
+            if (mod100 >= 11 && mod100 <= 19)
+            {
+                return Category.OTHER;
+            }
+            if (mod10 == 1)
+            {
+                return Category.ONE;
+            }
+            return mod10 >= 2 ? Category.FEW : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Latvian.
+     */
+    public static final PluralRules LATVIAN = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            final long mod10 = n % 10;
+            final long mod100 = n % 100;
+            if (mod10 == 0 || (mod100 >= 11 && mod100 <= 19))
+            {
+                return Category.ZERO;
+            }
+            return mod10 == 1 ? Category.ONE : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Romanian.
+     */
+    public static final PluralRules ROMANIAN = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            if (n == 1)
+            {
+                return Category.ONE;
+            }
+            final long mod100 = n % 100;
+            return n == 0 || (mod100 >= 2 && mod100 <= 19) ? Category.FEW : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Slovenian.
+     */
+    public static final PluralRules SLOVENIAN = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            final long mod100 = n % 100;
+            if (mod100 == 1)
+            {
+                return Category.ONE;
+            }
+            if (mod100 == 2)
+            {
+                return Category.TWO;
+            }
+            return mod100 == 3 || mod100 == 4 ? Category.FEW : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Arabic.
+     */
+    public static final PluralRules ARABIC = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            if (n <= 2)
+            {
+                return n == 0 ? Category.ZERO : n == 1 ? Category.ONE : Category.TWO;
+            }
+            final long mod100 = n % 100;
+            if (mod100 >= 3 && mod100 <= 10)
+            {
+                return Category.FEW;
+            }
+            return mod100 >= 11 ? Category.MANY : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Hebrew.
+     */
+    public static final PluralRules HEBREW = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            return n == 1 ? Category.ONE : n == 2 ? Category.TWO : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Irish.
+     */
+    public static final PluralRules IRISH = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            if (n <= 2)
+            {
+                return n == 1 ? Category.ONE : n == 2 ? Category.TWO : Category.OTHER;
+            }
+            if (n <= 6)
+            {
+                return Category.FEW;
+            }
+            return n <= 10 ? Category.MANY : Category.OTHER;
+        }
+    };
+
+    /**
+     * The rules of Welsh.
+     */
+    public static final PluralRules WELSH = new PluralRules()
+    {
+        @Override
+        public Category select(long n)
+        {
+            switch ((int)Math.min(n, 7))
+            {
+                case 0:
+                    return Category.ZERO;
+                case 1:
+                    return Category.ONE;
+                case 2:
+                    return Category.TWO;
+                case 3:
+                    return Category.FEW;
+                case 6:
+                    return Category.MANY;
+                default:
+                    return Category.OTHER;
+            }
+        }
+    };
+
+    /**
+     * One million.
+     */
+    private static final BigInteger MILLION = BigInteger.valueOf(1000000);
+
+    /**
+     * The rules by language code. Languages which aren't listed use {@link #ONE_OTHER}.
+     */
+    private static final Map<String, PluralRules> RULES = new HashMap<String, PluralRules>();
+
+    static
+    {
+        register(NONE, "ja", "zh", "ko", "vi", "th", "id", "ms", "lo", "my", "km");
+        register(ZERO_ONE_OTHER, "fr", "pt", "hy", "kab");
+        register(EAST_SLAVIC, "ru", "uk", "be");
+        register(SOUTH_SLAVIC, "hr", "sr", "bs", "sh");
+        register(POLISH, "pl");
+        register(CZECH, "cs", "sk");
+        register(LITHUANIAN, "lt");
+        register(LATVIAN, "lv");
+        register(ROMANIAN, "ro", "mo");
+        register(SLOVENIAN, "sl");
+        register(ARABIC, "ar");
+        register(HEBREW, "he", "iw");
+        register(IRISH, "ga");
+        register(WELSH, "cy");
+    }
+
+    private static void register(PluralRules rules, String... languages)
+    {
+        for (String language : languages)
+        {
+            RULES.put(language, rules);
+        }
+    }
+
+    /**
+     * Returns the plural rules of the language of a locale.
+     *
+     * @param locale The locale.
+     *
+     * @return the plural rules.
+     */
+    public static PluralRules forLocale(Locale locale)
+    {
+        PluralRules rules = RULES.get(locale.getLanguage());
+        return rules == null ? ONE_OTHER : rules;
+    }
+
+    /**
+     * Selects the plural category of a non-negative integer.
+     *
+     * @param n The integer.
+     *
+     * @return the plural category.
+     */
+    public abstract Category select(long n);
+
+    /**
+     * Selects the plural category of a number. The sign of the number is ignored and numbers with a fraction are of
+     * the category {@link Category#OTHER}.
+     *
+     * @param number The number.
+     *
+     * @return the plural category.
+     */
+    public Category select(Number number)
+    {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte
+            || number instanceof AtomicInteger || number instanceof AtomicLong)
+        {
+            return select(abs(number.longValue()));
+        }
+        if (number instanceof BigInteger)
+        {
+            BigInteger integer = ((BigInteger)number).abs();
+            if (integer.bitLength() < 63)
+            {
+                return select(integer.longValue());
+            }
+            return select(large(integer.mod(MILLION).longValue()));
+        }
+        if (number instanceof BigDecimal)
+        {
+            BigDecimal decimal = ((BigDecimal)number).stripTrailingZeros();
+            if (decimal.scale() > 0)
+            {
+                return Category.OTHER;
+            }
+            return select(decimal.toBigInteger());
+        }
+        final double value = number.doubleValue();
+        if (value != Math.rint(value) || Double.isInfinite(value))
+        {
+            return Category.OTHER;
+        }
+        final double abs = Math.abs(value);
+        return select(abs < 1e15 ? (long)abs : large((long)(abs % 1000000)));
+    }
+
+    /**
+     * Returns the absolute value of an integer, keeping the last digits of {@link Long#MIN_VALUE}.
+     *
+     * @param n The integer.
+     *
+     * @return the absolute value.
+     */
+    private static long abs(long n)
+    {
+        return n == Long.MIN_VALUE ? large(-(n % 1000000)) : Math.abs(n);
+    }
+
+    /**
+     * Returns a stand-in for an integer too large to be handled exactly. The rules only depend on the last few digits
+     * of large integers and treat every integer above a million alike otherwise.
+     *
+     * @param lastDigits The last six digits of the integer.
+     *
+     * @return a small integer larger than a million with the same last digits.
+     */
+    private static long large(long lastDigits)
+    {
+        return 1000000 + lastDigits;
+    }
+
+    /**
+     * The plural categories.
+     */
+    public enum Category
+    {
+        ZERO,
+        ONE,
+        TWO,
+        FEW,
+        MANY,
+        OTHER;
+
+        /**
+         * The name of the category as used by the CLDR and the macro parameters.
+         */
+        private final String name = name().toLowerCase(Locale.ENGLISH);
+
+        /**
+         * Returns the name of the category as used by the CLDR and the macro parameters, e.g. {@code one}.
+         *
+         * @return the lower case name.
+         */
+        public String getName()
+        {
+            return name;
+        }
+    }
+}
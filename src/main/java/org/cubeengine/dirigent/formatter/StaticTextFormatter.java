@@ -71,6 +71,19 @@ public class StaticTextFormatter extends ConstantFormatter
         return new Text(args.get(0));
     }
 
+    @Override
+    protected boolean appendFormatted(Context context, Arguments args, StringBuilder out)
+    {
+        out.append(args.get(0));
+        return true;
+    }
+
+    @Override
+    public boolean isPure()
+    {
+        return true;
+    }
+
     @Override
     public Set<String> getNames()
     {
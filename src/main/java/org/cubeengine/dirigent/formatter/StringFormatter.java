@@ -45,6 +45,12 @@ public class StringFormatter extends AbstractFormatter<Object>
      */
     static final String UPPERCASE_FLAG = "uppercase";
 
+    /**
+     * Whether {@link #parseObjectToString(Object, Locale, Arguments)} isn't overridden, so the input can be appended
+     * without converting it to a string first.
+     */
+    private final boolean plain = !overrides(getClass(), StringFormatter.class, "parseObjectToString");
+
     /**
      * Constructs this formatter with a few default names.
      */
@@ -69,6 +75,24 @@ public class StringFormatter extends AbstractFormatter<Object>
         return new Text(parseObjectToString(input, context.get(LOCALE), args));
     }
 
+    @Override
+    protected boolean appendFormatted(Object input, Context context, Arguments args, StringBuilder out)
+    {
+        if (!plain || args.has(LOWERCASE_FLAG) || args.has(UPPERCASE_FLAG))
+        {
+            out.append(parseObjectToString(input, context.get(LOCALE), args));
+        }
+        else if (input instanceof CharSequence)
+        {
+            out.append((CharSequence)input);
+        }
+        else
+        {
+            out.append(input);
+        }
+        return true;
+    }
+
     /**
      * Parses the given object to a string depending on the context.
      *
@@ -31,6 +31,7 @@ import org.cubeengine.dirigent.parser.component.ComponentGroup;
 /**
  * This post processor wraps the input component with simple static components.
  * It could be used to wrap a component with html to bold something for example.
+ * The resulting group is flat, so wrapping an already wrapped component doesn't nest the groups any deeper.
  */
 public class WrappingPostProcessor implements PostProcessor
 {
@@ -63,6 +64,6 @@ public class WrappingPostProcessor implements PostProcessor
     @Override
     public Component process(Component component, Context context, Arguments arguments)
     {
-        return new ComponentGroup(before, component, after);
+        return ComponentGroup.flatten(before, component, after);
     }
 }
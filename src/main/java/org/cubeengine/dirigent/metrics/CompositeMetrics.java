@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.cubeengine.dirigent.formatter.Formatter;
+
+/**
+ * Passes the metrics on to several listeners in the given order. The durations are only passed to the listeners
+ * {@link DirigentMetrics#isTiming() measuring them}, which is checked once on construction.
+ */
+public final class CompositeMetrics extends DirigentMetrics
+{
+    /**
+     * The listeners.
+     */
+    private final DirigentMetrics[] listeners;
+    /**
+     * The listeners measuring the durations.
+     */
+    private final DirigentMetrics[] timedListeners;
+
+    /**
+     * Constructor.
+     *
+     * @param listeners The listeners.
+     */
+    public CompositeMetrics(DirigentMetrics... listeners)
+    {
+        this.listeners = listeners.clone();
+        List<DirigentMetrics> timed = new ArrayList<DirigentMetrics>(listeners.length);
+        for (DirigentMetrics listener : listeners)
+        {
+            if (listener.isTiming())
+            {
+                timed.add(listener);
+            }
+        }
+        this.timedListeners = timed.toArray(new DirigentMetrics[timed.size()]);
+    }
+
+    @Override
+    public boolean isTiming()
+    {
+        return timedListeners.length > 0;
+    }
+
+    @Override
+    public Object beginCompose()
+    {
+        Object[] traces = null;
+        for (int i = 0; i < listeners.length; i++)
+        {
+            final Object trace = listeners[i].beginCompose();
+            if (trace != null)
+            {
+                if (traces == null)
+                {
+                    traces = new Object[listeners.length];
+                }
+                traces[i] = trace;
+            }
+        }
+        return traces;
+    }
+
+    @Override
+    public void endCompose(Object trace, String key, String source, Object[] inputs)
+    {
+        final Object[] traces = (Object[])trace;
+        for (int i = 0; i < listeners.length; i++)
+        {
+            if (traces[i] != null)
+            {
+                listeners[i].endCompose(traces[i], key, source, inputs);
+            }
+        }
+    }
+
+    @Override
+    public Object beginFormat()
+    {
+        Object[] traces = null;
+        for (int i = 0; i < listeners.length; i++)
+        {
+            final Object trace = listeners[i].beginFormat();
+            if (trace != null)
+            {
+                if (traces == null)
+                {
+                    traces = new Object[listeners.length];
+                }
+                traces[i] = trace;
+            }
+        }
+        return traces;
+    }
+
+    @Override
+    public void endFormat(Object trace, Formatter<?> formatter, Object input)
+    {
+        final Object[] traces = (Object[])trace;
+        for (int i = 0; i < listeners.length; i++)
+        {
+            if (traces[i] != null)
+            {
+                listeners[i].endFormat(traces[i], formatter, input);
+            }
+        }
+    }
+
+    @Override
+    public void composed(String source, Object[] inputs, long nanos)
+    {
+        for (DirigentMetrics listener : timedListeners)
+        {
+            listener.composed(source, inputs, nanos);
+        }
+    }
+
+    @Override
+    public void phase(Phase phase, long nanos)
+    {
+        for (DirigentMetrics listener : timedListeners)
+        {
+            listener.phase(phase, nanos);
+        }
+    }
+
+    @Override
+    public void formatted(Formatter<?> formatter, Object input, long nanos)
+    {
+        for (DirigentMetrics listener : timedListeners)
+        {
+            listener.formatted(formatter, input, nanos);
+        }
+    }
+
+    @Override
+    public void cacheHit()
+    {
+        for (DirigentMetrics listener : listeners)
+        {
+            listener.cacheHit();
+        }
+    }
+
+    @Override
+    public void cacheMiss()
+    {
+        for (DirigentMetrics listener : listeners)
+        {
+            listener.cacheMiss();
+        }
+    }
+}
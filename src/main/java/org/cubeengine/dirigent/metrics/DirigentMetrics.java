@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+import org.cubeengine.dirigent.formatter.Formatter;
+
+/**
+ * Listens to the timings of the compose pipeline of a {@link org.cubeengine.dirigent.AbstractDirigent}. All methods do
+ * nothing by default, so implementations only override what they are interested in. The methods are called by the
+ * composing threads, so implementations must be thread safe and fast.
+ *
+ * The durations are measured by the pipeline unless {@link #isTiming()} returns false. Besides that, the pipeline opens
+ * a trace around every message and formatter call with {@link #beginCompose()} and {@link #beginFormat()}, so
+ * implementations like a flight recorder event can measure the duration themselves, and only when they are enabled.
+ *
+ * The {@link #NONE} instance disables the metrics. The pipeline doesn't even read the clock then.
+ */
+public abstract class DirigentMetrics
+{
+    /**
+     * The metrics instance recording nothing.
+     */
+    public static final DirigentMetrics NONE = new DirigentMetrics()
+    {
+        @Override
+        public boolean isTiming()
+        {
+            return false;
+        }
+    };
+
+    /**
+     * Returns whether the pipeline measures the durations passed to {@link #composed(String, Object[], long)},
+     * {@link #phase(Phase, long)} and {@link #formatted(Formatter, Object, long)}. Implementations which only use the
+     * traces return false, so the clock isn't read for them. The result must not change over time. By default the
+     * durations are measured.
+     *
+     * @return whether the durations are measured.
+     */
+    public boolean isTiming()
+    {
+        return true;
+    }
+
+    /**
+     * Opens a trace before a message is composed. The trace is passed to
+     * {@link #endCompose(Object, String, String, Object[])} once the message is composed, unless composing it failed.
+     * By default nothing is traced.
+     *
+     * @return the trace or {@code null} if the message isn't traced.
+     */
+    public Object beginCompose()
+    {
+        return null;
+    }
+
+    /**
+     * Closes the trace of a composed message.
+     *
+     * @param trace The trace returned by {@link #beginCompose()}, never {@code null}.
+     * @param key The key of the message, see {@link org.cubeengine.dirigent.parser.Template#getKey()}. May be null.
+     * @param source The source of the message.
+     * @param inputs The message input parameters.
+     */
+    public void endCompose(Object trace, String key, String source, Object[] inputs)
+    {
+    }
+
+    /**
+     * Opens a trace before a formatter is called. The trace is passed to {@link #endFormat(Object, Formatter, Object)}
+     * once the formatter is done, unless it failed. By default nothing is traced.
+     *
+     * @return the trace or {@code null} if the formatter call isn't traced.
+     */
+    public Object beginFormat()
+    {
+        return null;
+    }
+
+    /**
+     * Closes the trace of a formatter call, including the post processors attached to the formatter.
+     *
+     * @param trace The trace returned by {@link #beginFormat()}, never {@code null}.
+     * @param formatter The formatter.
+     * @param input The formatted input parameter or {@code null} for constant formatters.
+     */
+    public void endFormat(Object trace, Formatter<?> formatter, Object input)
+    {
+    }
+
+    /**
+     * Records the duration of composing a whole message, including all phases. Messages served from the output cache
+     * are recorded as well.
+     *
+     * @param source The source of the message.
+     * @param inputs The message input parameters.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void composed(String source, Object[] inputs, long nanos)
+    {
+    }
+
+    /**
+     * Records the duration of a single phase of the compose pipeline.
+     *
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void phase(Phase phase, long nanos)
+    {
+    }
+
+    /**
+     * Records a formatter call, including the post processors attached to the formatter.
+     *
+     * @param formatter The formatter.
+     * @param input The formatted input parameter or {@code null} for constant formatters.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void formatted(Formatter<?> formatter, Object input, long nanos)
+    {
+    }
+
+    /**
+     * Records a message served from the {@link org.cubeengine.dirigent.cache.OutputCache}.
+     */
+    public void cacheHit()
+    {
+    }
+
+    /**
+     * Records a message which wasn't found in the {@link org.cubeengine.dirigent.cache.OutputCache}.
+     */
+    public void cacheMiss()
+    {
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of durations. The durations are counted in buckets of powers of two, so percentiles are
+ * approximated by the upper bound of their bucket, which is at most twice the exact value.
+ */
+public final class LatencyHistogram
+{
+    /**
+     * The number of buckets. Bucket {@code i} counts the durations in [2^(i-1), 2^i), bucket 0 counts zero durations.
+     */
+    private static final int BUCKETS = 64;
+
+    /**
+     * The counts of the buckets.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    /**
+     * The number of recorded durations.
+     */
+    private final AtomicLong count = new AtomicLong();
+    /**
+     * The sum of the recorded durations.
+     */
+    private final AtomicLong total = new AtomicLong();
+    /**
+     * The longest recorded duration.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds. Negative durations are recorded as zero.
+     */
+    public void record(long nanos)
+    {
+        final long value = Math.max(0, nanos);
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+        count.incrementAndGet();
+        total.addAndGet(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+        {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the count.
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the recorded durations.
+     *
+     * @return the sum in nanoseconds.
+     */
+    public long getTotalNanos()
+    {
+        return total.get();
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     *
+     * @return the mean in nanoseconds or 0 if nothing was recorded.
+     */
+    public long getMeanNanos()
+    {
+        final long n = count.get();
+        return n == 0 ? 0 : total.get() / n;
+    }
+
+    /**
+     * Returns the longest recorded duration.
+     *
+     * @return the maximum in nanoseconds.
+     */
+    public long getMaxNanos()
+    {
+        return max.get();
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the recorded durations.
+     *
+     * @param percentile The percentile between 0 and 100.
+     *
+     * @return the upper bound in nanoseconds or 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        if (percentile < 0 || percentile > 100)
+        {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100: " + percentile);
+        }
+
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+        if (n == 0)
+        {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long)Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Returns the largest duration counted by a bucket.
+     *
+     * @param bucket The index of the bucket.
+     *
+     * @return the upper bound in nanoseconds.
+     */
+    private static long upperBound(int bucket)
+    {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LatencyHistogram{count=" + getCount() + ", mean=" + getMeanNanos() + "ns, p50=" + getPercentileNanos(50)
+            + "ns, p99=" + getPercentileNanos(99) + "ns, max=" + getMaxNanos() + "ns}";
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+/**
+ * The phases of composing a message which are timed by {@link DirigentMetrics}.
+ */
+public enum Phase
+{
+    /**
+     * Parsing the source message into elements.
+     */
+    PARSE,
+    /**
+     * Resolving the formatters of the elements, including the global post processing.
+     */
+    RESOLVE,
+    /**
+     * Running the global {@link org.cubeengine.dirigent.formatter.PostProcessor}s of a single component. This is part
+     * of the {@link #RESOLVE} phase.
+     */
+    POST_PROCESS,
+    /**
+     * Building the final message from the resolved components, including the formatter calls.
+     */
+    BUILD
+}
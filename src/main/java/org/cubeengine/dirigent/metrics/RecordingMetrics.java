@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.cubeengine.dirigent.formatter.Formatter;
+
+/**
+ * Records the timings of the compose pipeline in {@link LatencyHistogram}s of the whole messages, per {@link Phase}
+ * and per formatter and counts the hits and misses of the output cache.
+ *
+ * The formatters are keyed by their {@link Formatter#getNames() names}. Formatters with several names are keyed by all
+ * names in alphabetical order, separated by {@code "|"}. Formatters with the same names share a histogram.
+ */
+public class RecordingMetrics extends DirigentMetrics
+{
+    /**
+     * The histogram of the whole messages.
+     */
+    private final LatencyHistogram messages = new LatencyHistogram();
+    /**
+     * The histograms of the phases.
+     */
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+    /**
+     * The histograms of the formatters by formatter instance.
+     */
+    private final ConcurrentMap<Formatter<?>, LatencyHistogram> byFormatter =
+        new ConcurrentHashMap<Formatter<?>, LatencyHistogram>();
+    /**
+     * The histograms of the formatters by name.
+     */
+    private final ConcurrentMap<String, LatencyHistogram> byName = new ConcurrentHashMap<String, LatencyHistogram>();
+    /**
+     * The number of output cache hits.
+     */
+    private final AtomicLong cacheHits = new AtomicLong();
+    /**
+     * The number of output cache misses.
+     */
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * Constructor.
+     */
+    public RecordingMetrics()
+    {
+        for (Phase phase : Phase.values())
+        {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void composed(String source, Object[] inputs, long nanos)
+    {
+        messages.record(nanos);
+    }
+
+    @Override
+    public void phase(Phase phase, long nanos)
+    {
+        phases.get(phase).record(nanos);
+    }
+
+    @Override
+    public void formatted(Formatter<?> formatter, Object input, long nanos)
+    {
+        LatencyHistogram histogram = byFormatter.get(formatter);
+        if (histogram == null)
+        {
+            histogram = histogramOf(keyOf(formatter));
+            byFormatter.putIfAbsent(formatter, histogram);
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public void cacheHit()
+    {
+        cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void cacheMiss()
+    {
+        cacheMisses.incrementAndGet();
+    }
+
+    /**
+     * Returns the histogram of the given name, creating it if necessary.
+     *
+     * @param key The name of the formatter.
+     *
+     * @return the histogram.
+     */
+    private LatencyHistogram histogramOf(String key)
+    {
+        LatencyHistogram histogram = byName.get(key);
+        if (histogram == null)
+        {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = byName.putIfAbsent(key, created);
+            if (histogram == null)
+            {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Creates the key of a formatter from its names.
+     *
+     * @param formatter The formatter.
+     *
+     * @return the key.
+     */
+    private static String keyOf(Formatter<?> formatter)
+    {
+        List<String> names = new ArrayList<String>(formatter.getNames());
+        if (names.isEmpty())
+        {
+            return formatter.getClass().getName();
+        }
+        Collections.sort(names);
+        StringBuilder key = new StringBuilder(names.get(0));
+        for (int i = 1; i < names.size(); ++i)
+        {
+            key.append('|').append(names.get(i));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the histogram of composing whole messages.
+     *
+     * @return the histogram.
+     */
+    public LatencyHistogram getMessages()
+    {
+        return messages;
+    }
+
+    /**
+     * Returns the histogram of the given phase.
+     *
+     * @param phase The phase.
+     *
+     * @return the histogram.
+     */
+    public LatencyHistogram getPhase(Phase phase)
+    {
+        return phases.get(phase);
+    }
+
+    /**
+     * Returns the histogram of the formatter with the given key. The number of calls of the formatter is the count of
+     * the histogram.
+     *
+     * @param key The name of the formatter or all its names in alphabetical order, separated by {@code "|"}.
+     *
+     * @return the histogram or {@code null} if the formatter wasn't called.
+     */
+    public LatencyHistogram getFormatter(String key)
+    {
+        return byName.get(key);
+    }
+
+    /**
+     * Returns the histograms of all called formatters.
+     *
+     * @return the histograms sorted by their keys.
+     */
+    public Map<String, LatencyHistogram> getFormatters()
+    {
+        return Collections.unmodifiableMap(new TreeMap<String, LatencyHistogram>(byName));
+    }
+
+    /**
+     * Returns the number of messages served from the output cache.
+     *
+     * @return the hits.
+     */
+    public long getCacheHits()
+    {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of messages which weren't found in the output cache.
+     *
+     * @return the misses.
+     */
+    public long getCacheMisses()
+    {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Returns the ratio of messages served from the output cache.
+     *
+     * @return the hit rate between 0 and 1 or 0 if the cache wasn't used.
+     */
+    public double getCacheHitRate()
+    {
+        final long hits = cacheHits.get();
+        final long total = hits + cacheMisses.get();
+        return total == 0 ? 0 : (double)hits / total;
+    }
+}
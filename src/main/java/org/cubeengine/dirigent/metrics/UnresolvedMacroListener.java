@@ -0,0 +1,43 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
+
+/**
+ * Listens to the macros which couldn't be resolved by a {@link org.cubeengine.dirigent.AbstractDirigent}. The listener
+ * is independent of the {@link DirigentMetrics}, so it only costs anything if a macro is actually unresolvable and
+ * doesn't enable the timing of the compose pipeline. It is called by the composing threads, so implementations must be
+ * thread safe.
+ */
+public interface UnresolvedMacroListener
+{
+    /**
+     * Records a macro which couldn't be resolved. Such macros are rare and usually caused by broken messages, so
+     * implementations may do some more work here.
+     *
+     * @param source The source of the message.
+     * @param macro The unresolvable macro.
+     */
+    void unresolved(String source, UnresolvableMacro macro);
+}
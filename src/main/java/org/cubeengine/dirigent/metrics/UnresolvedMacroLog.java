@@ -0,0 +1,326 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.cubeengine.dirigent.parser.MacroResolutionState;
+import org.cubeengine.dirigent.parser.component.UnresolvableMacro;
+import org.cubeengine.dirigent.parser.element.NamedMacro;
+
+/**
+ * Counts the macros which couldn't be resolved, e.g. because of a typo in the formatter name of a translation. The
+ * occurrences are deduplicated by the source of the message, the macro name, the {@link MacroResolutionState} and the
+ * class of the input parameter. Recording an occurrence only increments a counter, so the log can be read and reported
+ * periodically by another thread instead of logging every occurrence.
+ *
+ * The number of distinct entries is bounded. Occurrences of new entries are only counted as dropped once the log is
+ * full.
+ *
+ * The log is registered with {@link org.cubeengine.dirigent.AbstractDirigent#setUnresolvedMacroListener(
+ * UnresolvedMacroListener)}.
+ */
+public class UnresolvedMacroLog implements UnresolvedMacroListener
+{
+    /**
+     * The default maximum number of distinct entries.
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * The maximum number of distinct entries.
+     */
+    private final int capacity;
+    /**
+     * The counters of the entries.
+     */
+    private volatile ConcurrentMap<Entry, AtomicLong> counts = new ConcurrentHashMap<Entry, AtomicLong>();
+    /**
+     * The number of all occurrences.
+     */
+    private final AtomicLong total = new AtomicLong();
+    /**
+     * The number of occurrences which weren't counted because the log was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructor. Uses the {@link #DEFAULT_CAPACITY}.
+     */
+    public UnresolvedMacroLog()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of distinct entries.
+     */
+    public UnresolvedMacroLog(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void unresolved(String source, UnresolvableMacro macro)
+    {
+        total.incrementAndGet();
+
+        final String name = macro.getMacro() instanceof NamedMacro ? ((NamedMacro)macro.getMacro()).getName() : null;
+        final Object input = macro.getInput();
+        final Entry entry = new Entry(source, name, macro.getState(), input == null ? null : input.getClass());
+
+        final ConcurrentMap<Entry, AtomicLong> counts = this.counts;
+        AtomicLong count = counts.get(entry);
+        if (count == null)
+        {
+            if (counts.size() >= capacity)
+            {
+                dropped.incrementAndGet();
+                return;
+            }
+            AtomicLong created = new AtomicLong();
+            count = counts.putIfAbsent(entry, created);
+            if (count == null)
+            {
+                count = created;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of all occurrences, including the dropped ones.
+     *
+     * @return the number of occurrences.
+     */
+    public long getTotal()
+    {
+        return total.get();
+    }
+
+    /**
+     * Returns the number of occurrences which weren't counted because the log was full.
+     *
+     * @return the number of dropped occurrences.
+     */
+    public long getDropped()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the counted entries.
+     *
+     * @return the entries and their number of occurrences, the most frequent first.
+     */
+    public Map<Entry, Long> getEntries()
+    {
+        return sorted(counts);
+    }
+
+    /**
+     * Returns the counted entries and starts a new log, e.g. after reporting the entries. Occurrences recorded
+     * concurrently might be missed. The total and dropped counters aren't reset.
+     *
+     * @return the entries and their number of occurrences, the most frequent first.
+     */
+    public Map<Entry, Long> drain()
+    {
+        final ConcurrentMap<Entry, AtomicLong> drained = counts;
+        counts = new ConcurrentHashMap<Entry, AtomicLong>();
+        return sorted(drained);
+    }
+
+    /**
+     * Copies the counters sorted by their values.
+     *
+     * @param counts The counters.
+     *
+     * @return the sorted copy.
+     */
+    private static Map<Entry, Long> sorted(Map<Entry, AtomicLong> counts)
+    {
+        final Map<Entry, Long> values = new HashMap<Entry, Long>();
+        for (Map.Entry<Entry, AtomicLong> count : counts.entrySet())
+        {
+            values.put(count.getKey(), count.getValue().get());
+        }
+        List<Entry> entries = new ArrayList<Entry>(values.keySet());
+        Collections.sort(entries, new Comparator<Entry>()
+        {
+            @Override
+            public int compare(Entry o1, Entry o2)
+            {
+                return values.get(o2).compareTo(values.get(o1));
+            }
+        });
+
+        Map<Entry, Long> result = new LinkedHashMap<Entry, Long>();
+        for (Entry entry : entries)
+        {
+            result.put(entry, values.get(entry));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * A distinct kind of unresolvable macros.
+     */
+    public static final class Entry
+    {
+        /**
+         * The source of the message.
+         */
+        private final String source;
+        /**
+         * The name of the macro or {@code null} for default macros.
+         */
+        private final String name;
+        /**
+         * The resolution state.
+         */
+        private final MacroResolutionState state;
+        /**
+         * The class of the input parameter or {@code null}.
+         */
+        private final Class<?> inputType;
+
+        /**
+         * Constructor.
+         *
+         * @param source The source of the message.
+         * @param name The name of the macro or {@code null} for default macros.
+         * @param state The resolution state.
+         * @param inputType The class of the input parameter or {@code null}.
+         */
+        public Entry(String source, String name, MacroResolutionState state, Class<?> inputType)
+        {
+            this.source = source;
+            this.name = name;
+            this.state = state;
+            this.inputType = inputType;
+        }
+
+        /**
+         * Returns the source of the message.
+         *
+         * @return the source.
+         */
+        public String getSource()
+        {
+            return source;
+        }
+
+        /**
+         * Returns the name of the macro.
+         *
+         * @return the name or {@code null} for default macros.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Returns the resolution state.
+         *
+         * @return the state.
+         */
+        public MacroResolutionState getState()
+        {
+            return state;
+        }
+
+        /**
+         * Returns the class of the input parameter.
+         *
+         * @return the class or {@code null} if the input parameter was null or missing.
+         */
+        public Class<?> getInputType()
+        {
+            return inputType;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Entry))
+            {
+                return false;
+            }
+
+            final Entry that = (Entry)o;
+
+            return eq(source, that.source) && eq(name, that.name) && state == that.state
+                && inputType == that.inputType;
+        }
+
+        /**
+         * Compares two nullable objects.
+         *
+         * @param a The first object.
+         * @param b The second object.
+         *
+         * @return whether they are equal.
+         */
+        private static boolean eq(Object a, Object b)
+        {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = source != null ? source.hashCode() : 0;
+            result = 31 * result + (name != null ? name.hashCode() : 0);
+            result = 31 * result + (state != null ? state.hashCode() : 0);
+            result = 31 * result + (inputType != null ? inputType.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString()
+        {
+            final String type = inputType == null ? null : inputType.getName();
+            return "Entry{source=" + source + ", name=" + name + ", state=" + state + ", inputType=" + type + '}';
+        }
+    }
+}
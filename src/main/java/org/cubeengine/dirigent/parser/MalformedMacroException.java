@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser;
+
+/**
+ * This Exception is thrown by {@link Parser#parseStrict(String)} if a message contains a malformed macro, which the
+ * lenient {@link Parser#parse(String)} would keep as text.
+ */
+public class MalformedMacroException extends IllegalArgumentException
+{
+    /**
+     * The malformed message.
+     */
+    private final String source;
+    /**
+     * The position of the malformed macro in the message.
+     */
+    private final int offset;
+
+    /**
+     * Constructor.
+     *
+     * @param source The malformed message.
+     * @param offset The position of the malformed macro in the message.
+     * @param reason The description of the problem.
+     */
+    public MalformedMacroException(String source, int offset, String reason)
+    {
+        super(reason + " at position " + offset + ": " + source);
+        this.source = source;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the malformed message.
+     *
+     * @return the message.
+     */
+    public String getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the position of the malformed macro in the message.
+     *
+     * @return the position.
+     */
+    public int getOffset()
+    {
+        return offset;
+    }
+}
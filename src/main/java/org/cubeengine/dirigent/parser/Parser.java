@@ -76,12 +76,14 @@ public class Parser
     {
         private final String in;
         private final List<Element> out;
+        private final boolean strict;
         private int offset = 0;
 
-        public State(String in, List<Element> out)
+        public State(String in, List<Element> out, boolean strict)
         {
             this.in = in;
             this.out = out;
+            this.strict = strict;
         }
 
         boolean outOfInput()
@@ -106,7 +108,34 @@ public class Parser
         }
     }
 
+    /**
+     * Parses a message. Malformed macros are kept as text.
+     *
+     * @param message The message.
+     *
+     * @return the parsed elements.
+     */
     public static List<Element> parse(String message)
+    {
+        return parse(message, false);
+    }
+
+    /**
+     * Parses a message and rejects malformed macros, e.g. unclosed macros or parameters without name. Escaped macro
+     * braces are allowed. This is meant to check messages ahead of time, e.g. at build time.
+     *
+     * @param message The message.
+     *
+     * @return the parsed elements.
+     *
+     * @throws MalformedMacroException if the message contains a malformed macro.
+     */
+    public static List<Element> parseStrict(String message)
+    {
+        return parse(message, true);
+    }
+
+    private static List<Element> parse(String message, boolean strict)
     {
         if (message == null)
         {
@@ -116,7 +145,7 @@ public class Parser
         {
             return emptyList();
         }
-        State s = new State(message, new ArrayList<Element>(1));
+        State s = new State(message, new ArrayList<Element>(1), strict);
         parseParts(s);
 
         return ParserHelper.mergeAdjacentTexts(s.out);
@@ -212,8 +241,7 @@ public class Parser
         int start = s.offset++;
         if (s.outOfInput())
         {
-            s.offset = start;
-            parseText(s, true);
+            backtrack(s, start, "Unclosed macro");
         }
         else
         {
@@ -301,9 +329,7 @@ public class Parser
         }
         if (s.outOfInput())
         {
-            // backtrack
-            s.offset = start;
-            parseText(s, true);
+            backtrack(s, start, "Unclosed macro");
             return;
         }
         final Arguments args;
@@ -312,9 +338,7 @@ public class Parser
             args = parseArguments(s);
             if (args == null)
             {
-                // parsing arguments failed, backtrack
-                s.offset = start;
-                parseText(s, true);
+                backtrack(s, start, "Parameter without name");
                 return;
             }
         }
@@ -337,9 +361,25 @@ public class Parser
         }
         else
         {
-            s.offset = start;
-            parseText(s, true);
+            backtrack(s, start, "Unclosed macro");
+        }
+    }
+
+    /**
+     * Handles a malformed macro. It is either kept as text or rejected in strict mode.
+     *
+     * @param s The parser state.
+     * @param start The position of the macro.
+     * @param reason The description of the problem.
+     */
+    private static void backtrack(State s, int start, String reason)
+    {
+        if (s.strict)
+        {
+            throw new MalformedMacroException(s.in, start, reason);
         }
+        s.offset = start;
+        parseText(s, true);
     }
 
     private static Arguments parseArguments(State s)
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser;
+
+import java.util.List;
+import org.cubeengine.dirigent.parser.element.Element;
+
+/**
+ * A compiled message. It holds the source message and the {@link Element}s it was parsed to, so a message which is
+ * composed repeatedly only has to be parsed once. Templates of a {@link org.cubeengine.dirigent.catalog.MessageCatalog}
+ * also hold the key of the message, e.g. for the metrics. Templates are immutable and can be shared between threads.
+ * They are compared by identity.
+ */
+public final class Template
+{
+    /**
+     * The key of the message. May be null.
+     */
+    private final String key;
+    /**
+     * The source message.
+     */
+    private final String source;
+    /**
+     * The parsed elements of the message.
+     */
+    private final List<Element> elements;
+
+    /**
+     * Constructor.
+     *
+     * @param source The source message.
+     * @param elements The parsed elements of the message.
+     */
+    public Template(String source, List<Element> elements)
+    {
+        this(null, source, elements);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param key The key of the message. May be null.
+     * @param source The source message.
+     * @param elements The parsed elements of the message.
+     */
+    public Template(String key, String source, List<Element> elements)
+    {
+        this.key = key;
+        this.source = source;
+        this.elements = elements;
+    }
+
+    /**
+     * Returns the key of the message, e.g. within a {@link org.cubeengine.dirigent.catalog.MessageCatalog}.
+     *
+     * @return the key or {@code null} if the template isn't identified by a key.
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * Returns the source message of this template.
+     *
+     * @return the source message.
+     */
+    public String getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the parsed elements of this template.
+     *
+     * @return the elements.
+     */
+    public List<Element> getElements()
+    {
+        return elements;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Template{" + "key='" + key + '\'' + ", source='" + source + '\'' + ", elements=" + elements + '}';
+    }
+}
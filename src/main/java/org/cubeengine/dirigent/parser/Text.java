@@ -22,13 +22,16 @@
  */
 package org.cubeengine.dirigent.parser;
 
+import org.cubeengine.dirigent.parser.component.ComponentVisitor;
 import org.cubeengine.dirigent.parser.component.TextComponent;
+import org.cubeengine.dirigent.parser.component.VisitableComponent;
 import org.cubeengine.dirigent.parser.element.Element;
+import org.cubeengine.dirigent.parser.element.ElementVisitor;
 
 /**
  * A simple component and token for static strings.
  */
-public class Text implements Element, TextComponent
+public class Text implements Element, TextComponent, VisitableComponent
 {
     public static final Text EMPTY = new Text("");
 
@@ -57,6 +60,18 @@ public class Text implements Element, TextComponent
         return string;
     }
 
+    @Override
+    public <A, B> void accept(ComponentVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitText(this, a, b);
+    }
+
+    @Override
+    public <A, B> void accept(ElementVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitText(this, a, b);
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser.component;
+
+import java.util.Arrays;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.formatter.Formatter;
+import org.cubeengine.dirigent.parser.element.ElementVisitor;
+
+/**
+ * Holds the intermediate components of a message while it is composed, so they can be reused for the next message.
+ * An arena is confined to a single thread and to a single message at a time: it is acquired before resolving a message
+ * and released once the message was composed. Components taken from the arena must not be referenced afterwards.
+ */
+public final class ComponentArena
+{
+    /**
+     * The reused slot array of the message components.
+     */
+    private Component[] slots = new Component[0];
+    /**
+     * The reused group of the message components.
+     */
+    private final ComponentGroup group = new ComponentGroup(slots);
+    /**
+     * The number of used slots.
+     */
+    private int usedSlots = 0;
+    /**
+     * The reused visitor resolving the elements of a message or {@code null}.
+     */
+    private ElementVisitor<Component[], Context> resolver;
+    /**
+     * The reused resolved macros.
+     */
+    private PooledResolvedMacro[] macros = new PooledResolvedMacro[0];
+    /**
+     * The number of resolved macros in use.
+     */
+    private int usedMacros = 0;
+    /**
+     * Whether the arena is in use.
+     */
+    private boolean inUse = false;
+
+    /**
+     * Acquires the arena for composing a message.
+     *
+     * @return whether the arena was acquired, {@code false} if it is already in use by an enclosing compose.
+     */
+    public boolean acquire()
+    {
+        if (inUse)
+        {
+            return false;
+        }
+        inUse = true;
+        return true;
+    }
+
+    /**
+     * Releases the arena after the message was composed. The references to the components and inputs are cleared.
+     */
+    public void release()
+    {
+        Arrays.fill(slots, 0, usedSlots, null);
+        usedSlots = 0;
+        for (int i = 0; i < usedMacros; ++i)
+        {
+            macros[i].reset(null, null, null);
+        }
+        usedMacros = 0;
+        inUse = false;
+    }
+
+    /**
+     * Returns the slot array for the components of a message. The array only grows, so it is reused for all messages
+     * with at most as many components as the largest message so far. It may be longer than requested.
+     *
+     * @param size The number of components.
+     *
+     * @return the slot array.
+     */
+    public Component[] slots(int size)
+    {
+        if (slots.length < size)
+        {
+            slots = new Component[Math.max(size, slots.length * 2)];
+        }
+        usedSlots = Math.max(usedSlots, size);
+        return slots;
+    }
+
+    /**
+     * Returns the group of the given components.
+     *
+     * @param components The components, usually the array returned by {@link #slots(int)}.
+     * @param size The number of components at the start of the array.
+     *
+     * @return the group.
+     */
+    public ComponentGroup group(Component[] components, int size)
+    {
+        group.reset(components, size);
+        return group;
+    }
+
+    /**
+     * Returns the reused visitor resolving the elements of a message.
+     *
+     * @return the visitor or {@code null} if none was set yet.
+     */
+    public ElementVisitor<Component[], Context> getResolver()
+    {
+        return resolver;
+    }
+
+    /**
+     * Sets the visitor resolving the elements of a message, so it can be reused for the next message. The visitor must
+     * not keep references to the message once it is done.
+     *
+     * @param resolver The visitor.
+     */
+    public void setResolver(ElementVisitor<Component[], Context> resolver)
+    {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Returns a {@link ResolvedMacro} for the given values.
+     *
+     * @param formatter The formatter which is responsible of formatting the messages input parameter.
+     * @param input The messages input parameter.
+     * @param arguments The macro arguments.
+     *
+     * @return the resolved macro.
+     */
+    public ResolvedMacro resolved(Formatter<Object> formatter, Object input, Arguments arguments)
+    {
+        if (usedMacros == macros.length)
+        {
+            macros = Arrays.copyOf(macros, Math.max(4, macros.length * 2));
+        }
+        PooledResolvedMacro macro = macros[usedMacros];
+        if (macro == null)
+        {
+            macro = new PooledResolvedMacro();
+            macros[usedMacros] = macro;
+        }
+        macro.reset(formatter, input, arguments);
+        usedMacros++;
+        return macro;
+    }
+}
@@ -30,20 +30,114 @@ import java.util.List;
  * Multiple components grouped together to form a single logical unit.
  * This can be used to implement nesting.
  */
-public class ComponentGroup implements Component
+public class ComponentGroup implements VisitableComponent
 {
-    public static final ComponentGroup EMPTY = new ComponentGroup(Collections.<Component>emptyList());
+    public static final ComponentGroup EMPTY = new ComponentGroup(new Component[0]);
 
-    private List<Component> components;
+    /**
+     * The components of this group.
+     */
+    private Component[] components;
+    /**
+     * The number of components, the array may be longer if the group is reused by a {@link ComponentArena}.
+     */
+    private int size;
 
+    /**
+     * Constructor. The components are copied.
+     *
+     * @param components The components of this group.
+     */
     public ComponentGroup(List<Component> components)
     {
-        this.components = Collections.unmodifiableList(components);
+        this.components = components.toArray(new Component[components.size()]);
+        this.size = this.components.length;
     }
 
+    /**
+     * Constructor. The array is used as is and must not be modified afterwards.
+     *
+     * @param components The components of this group.
+     */
     public ComponentGroup(Component... components)
     {
-        this(Arrays.asList(components));
+        this.components = components;
+        this.size = components.length;
+    }
+
+    /**
+     * Replaces the components so the group can be reused by a {@link ComponentArena}.
+     *
+     * @param components The components of this group.
+     * @param size The number of components at the start of the array.
+     */
+    void reset(Component[] components, int size)
+    {
+        this.components = components;
+        this.size = size;
+    }
+
+    /**
+     * Creates a group of the given components. Nested groups are inlined and empty {@link TextComponent}s are left out,
+     * so wrapping a component several times doesn't result in deeply nested groups.
+     *
+     * @param components The components.
+     *
+     * @return the flat group.
+     */
+    public static ComponentGroup flatten(Component... components)
+    {
+        int size = 0;
+        boolean flat = true;
+        for (Component component : components)
+        {
+            if (component instanceof ComponentGroup)
+            {
+                size += ((ComponentGroup)component).size();
+                flat = false;
+            }
+            else if (isEmptyText(component))
+            {
+                flat = false;
+            }
+            else
+            {
+                size++;
+            }
+        }
+        if (flat)
+        {
+            return new ComponentGroup(components);
+        }
+
+        Component[] flattened = new Component[size];
+        int i = 0;
+        for (Component component : components)
+        {
+            if (component instanceof ComponentGroup)
+            {
+                ComponentGroup group = (ComponentGroup)component;
+                System.arraycopy(group.components, 0, flattened, i, group.size);
+                i += group.size;
+            }
+            else if (!isEmptyText(component))
+            {
+                flattened[i++] = component;
+            }
+        }
+        return new ComponentGroup(flattened);
+    }
+
+    /**
+     * Checks whether the component is a {@link TextComponent} without text.
+     *
+     * @param component The component.
+     *
+     * @return whether it's an empty text.
+     */
+    private static boolean isEmptyText(Component component)
+    {
+        return component instanceof TextComponent && ((TextComponent)component).getText().isEmpty();
     }
 
     /**
@@ -53,7 +147,35 @@ public class ComponentGroup implements Component
      */
     public List<Component> getComponents()
     {
-        return components;
+        return Collections.unmodifiableList(Arrays.asList(components).subList(0, size));
+    }
+
+    /**
+     * Returns the number of components of this group.
+     *
+     * @return the number of components.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the component at the given position.
+     *
+     * @param index The position of the component.
+     *
+     * @return the component.
+     */
+    public Component get(int index)
+    {
+        return components[index];
+    }
+
+    @Override
+    public <A, B> void accept(ComponentVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitGroup(this, a, b);
     }
 
     @Override
@@ -70,18 +192,34 @@ public class ComponentGroup implements Component
 
         final ComponentGroup that = (ComponentGroup)o;
 
-        return getComponents().equals(that.getComponents());
+        if (size != that.size)
+        {
+            return false;
+        }
+        for (int i = 0; i < size; i++)
+        {
+            if (components[i] == null ? that.components[i] != null : !components[i].equals(that.components[i]))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode()
     {
-        return getComponents().hashCode();
+        int hash = 1;
+        for (int i = 0; i < size; i++)
+        {
+            hash = 31 * hash + (components[i] == null ? 0 : components[i].hashCode());
+        }
+        return hash;
     }
 
     @Override
     public String toString()
     {
-        return "ComponentGroup{" + "components=" + components + '}';
+        return "ComponentGroup{" + "components=" + getComponents() + '}';
     }
 }
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser.component;
+
+/**
+ * A visitor of {@link VisitableComponent}s. It allows handling the different kinds of components without walking
+ * through a chain of instanceof checks.
+ *
+ * @param <A> The type of the first parameter passed through to the visitor.
+ * @param <B> The type of the second parameter passed through to the visitor.
+ */
+public interface ComponentVisitor<A, B>
+{
+    /**
+     * Visits a {@link TextComponent}.
+     *
+     * @param component The component.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitText(TextComponent component, A a, B b);
+
+    /**
+     * Visits a {@link ResolvedMacro}.
+     *
+     * @param component The component.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitResolved(ResolvedMacro component, A a, B b);
+
+    /**
+     * Visits an {@link UnresolvableMacro}.
+     *
+     * @param component The component.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitUnresolvable(UnresolvableMacro component, A a, B b);
+
+    /**
+     * Visits a {@link ComponentGroup}.
+     *
+     * @param component The component.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitGroup(ComponentGroup component, A a, B b);
+
+    /**
+     * Visits any other kind of {@link Component}.
+     *
+     * @param component The component.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitOther(Component component, A a, B b);
+}
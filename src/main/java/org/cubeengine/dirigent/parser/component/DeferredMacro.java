@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser.component;
+
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.formatter.Formatter;
+
+/**
+ * A {@link ResolvedMacro} which is formatted ahead of the message composition, e.g. because its formatter is blocking
+ * and is executed concurrently to other macros of the message.
+ */
+public class DeferredMacro extends ResolvedMacro
+{
+    /**
+     * The formatted component or {@code null} if not yet formatted.
+     */
+    private volatile Component result;
+
+    /**
+     * Constructor.
+     *
+     * @param formatter The formatter which is responsible of formatting the messages input parameter.
+     * @param input The messages input parameter.
+     * @param arguments The macro arguments.
+     */
+    public DeferredMacro(Formatter<Object> formatter, Object input, Arguments arguments)
+    {
+        super(formatter, input, arguments);
+    }
+
+    /**
+     * Formats the input parameter with the formatter of this macro and keeps the result.
+     *
+     * @param context The compose context.
+     */
+    public void format(Context context)
+    {
+        this.result = getFormatter().process(getInput(), context, getArguments());
+    }
+
+    /**
+     * Returns the formatted component.
+     *
+     * @return the formatted component or {@code null} if the macro wasn't formatted yet.
+     */
+    public Component getResult()
+    {
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DeferredMacro{" + "formatter=" + getFormatter() + ", input=" + getInput() + ", arguments="
+            + getArguments() + ", result=" + result + '}';
+    }
+}
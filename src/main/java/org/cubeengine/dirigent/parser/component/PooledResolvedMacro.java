@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser.component;
+
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.formatter.Formatter;
+
+/**
+ * A {@link ResolvedMacro} which is reused by a {@link ComponentArena} for the next message. It is confined to the thread
+ * of the arena, so its values may change, unlike the ones of the immutable {@link ResolvedMacro}.
+ */
+final class PooledResolvedMacro extends ResolvedMacro
+{
+    /**
+     * The formatter which is responsible of formatting the messages input parameter.
+     */
+    private Formatter<Object> formatter;
+    /**
+     * The messages input parameter.
+     */
+    private Object input;
+    /**
+     * The macro arguments.
+     */
+    private Arguments arguments;
+
+    /**
+     * Constructor.
+     */
+    PooledResolvedMacro()
+    {
+        super(null, null, null);
+    }
+
+    /**
+     * Sets new values for the next message.
+     *
+     * @param formatter The formatter which is responsible of formatting the messages input parameter.
+     * @param input The messages input parameter.
+     * @param arguments The macro arguments.
+     */
+    void reset(Formatter<Object> formatter, Object input, Arguments arguments)
+    {
+        this.formatter = formatter;
+        this.input = input;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Formatter<Object> getFormatter()
+    {
+        return formatter;
+    }
+
+    @Override
+    public Object getInput()
+    {
+        return input;
+    }
+
+    @Override
+    public Arguments getArguments()
+    {
+        return arguments;
+    }
+}
@@ -28,7 +28,7 @@ import org.cubeengine.dirigent.context.Arguments;
 /**
  * A Component containing the formatter found for a token
  */
-public class ResolvedMacro implements Component
+public class ResolvedMacro implements VisitableComponent
 {
     /**
      * The formatter which is responsible of formatting the messages input parameter.
@@ -87,6 +87,12 @@ public class ResolvedMacro implements Component
         return arguments;
     }
 
+    @Override
+    public <A, B> void accept(ComponentVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitResolved(this, a, b);
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -124,6 +130,7 @@ public class ResolvedMacro implements Component
     @Override
     public String toString()
     {
-        return "ResolvedMacro{" + "formatter=" + formatter + ", input=" + input + ", arguments=" + arguments + '}';
+        return "ResolvedMacro{" + "formatter=" + getFormatter() + ", input=" + getInput() + ", arguments="
+            + getArguments() + '}';
     }
 }
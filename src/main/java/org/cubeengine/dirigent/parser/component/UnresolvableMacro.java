@@ -29,7 +29,7 @@ import org.cubeengine.dirigent.parser.element.Macro;
  * A Component signaling that a Formatter could not be resolved. This might be because a formatter couldn't be found for
  * a macro.
  */
-public class UnresolvableMacro implements Component
+public class UnresolvableMacro implements VisitableComponent
 {
     /**
      * The macro which couldn't be resolved.
@@ -88,6 +88,12 @@ public class UnresolvableMacro implements Component
         return state;
     }
 
+    @Override
+    public <A, B> void accept(ComponentVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitUnresolvable(this, a, b);
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -0,0 +1,41 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser.component;
+
+/**
+ * A {@link Component} which dispatches itself to a {@link ComponentVisitor}. All components of the library implement
+ * this interface. Custom components which don't implement it are still supported, but are handled more slowly.
+ */
+public interface VisitableComponent extends Component
+{
+    /**
+     * Calls the method of the visitor matching the kind of this component.
+     *
+     * @param visitor The visitor.
+     * @param a The first parameter passed through to the visitor.
+     * @param b The second parameter passed through to the visitor.
+     * @param <A> The type of the first parameter.
+     * @param <B> The type of the second parameter.
+     */
+    <A, B> void accept(ComponentVisitor<A, B> visitor, A a, B b);
+}
@@ -53,6 +53,12 @@ public class CompleteMacro extends NamedMacro implements Indexed
         return index;
     }
 
+    @Override
+    public <A, B> void accept(ElementVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitCompleteMacro(this, a, b);
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -32,6 +32,12 @@ public class DefaultMacro implements Macro
      */
     public static final DefaultMacro DEFAULT_MACRO = new DefaultMacro();
 
+    @Override
+    public <A, B> void accept(ElementVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitDefaultMacro(this, a, b);
+    }
+
     @Override
     public String toString()
     {
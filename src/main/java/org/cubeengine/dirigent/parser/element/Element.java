@@ -27,4 +27,14 @@ package org.cubeengine.dirigent.parser.element;
  */
 public interface Element
 {
+    /**
+     * Calls the method of the visitor matching the kind of this element.
+     *
+     * @param visitor The visitor.
+     * @param a The first parameter passed through to the visitor.
+     * @param b The second parameter passed through to the visitor.
+     * @param <A> The type of the first parameter.
+     * @param <B> The type of the second parameter.
+     */
+    <A, B> void accept(ElementVisitor<A, B> visitor, A a, B b);
 }
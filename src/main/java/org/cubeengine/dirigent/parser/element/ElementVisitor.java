@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.parser.element;
+
+import org.cubeengine.dirigent.parser.Text;
+
+/**
+ * A visitor of {@link Element}s. It allows handling the different kinds of elements without walking through a chain of
+ * instanceof checks.
+ *
+ * @param <A> The type of the first parameter passed through to the visitor.
+ * @param <B> The type of the second parameter passed through to the visitor.
+ */
+public interface ElementVisitor<A, B>
+{
+    /**
+     * Visits a {@link Text}.
+     *
+     * @param element The element.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitText(Text element, A a, B b);
+
+    /**
+     * Visits a {@link DefaultMacro}.
+     *
+     * @param element The element.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitDefaultMacro(DefaultMacro element, A a, B b);
+
+    /**
+     * Visits an {@link IndexedDefaultMacro}.
+     *
+     * @param element The element.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitIndexedDefaultMacro(IndexedDefaultMacro element, A a, B b);
+
+    /**
+     * Visits a {@link NamedMacro}.
+     *
+     * @param element The element.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitNamedMacro(NamedMacro element, A a, B b);
+
+    /**
+     * Visits a {@link CompleteMacro}.
+     *
+     * @param element The element.
+     * @param a The first parameter.
+     * @param b The second parameter.
+     */
+    void visitCompleteMacro(CompleteMacro element, A a, B b);
+}
@@ -48,6 +48,12 @@ public class IndexedDefaultMacro extends DefaultMacro implements Indexed
         return index;
     }
 
+    @Override
+    public <A, B> void accept(ElementVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitIndexedDefaultMacro(this, a, b);
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -70,6 +70,12 @@ public class NamedMacro implements Macro
         return args;
     }
 
+    @Override
+    public <A, B> void accept(ElementVisitor<A, B> visitor, A a, B b)
+    {
+        visitor.visitNamedMacro(this, a, b);
+    }
+
     @Override
     public boolean equals(Object o)
     {
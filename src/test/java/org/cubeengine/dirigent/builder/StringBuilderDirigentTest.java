@@ -22,12 +22,28 @@
  */
 package org.cubeengine.dirigent.builder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.cubeengine.dirigent.Dirigent;
+import org.cubeengine.dirigent.MessageSink;
+import org.cubeengine.dirigent.cache.OutputCache;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
 import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.formatter.AbstractFormatter;
 import org.cubeengine.dirigent.formatter.CurrencyFormatter;
 import org.cubeengine.dirigent.formatter.DateFormatter;
 import org.cubeengine.dirigent.formatter.DateTimeFormatter;
@@ -39,13 +55,24 @@ import org.cubeengine.dirigent.formatter.StaticTextFormatter;
 import org.cubeengine.dirigent.formatter.StringFormatter;
 import org.cubeengine.dirigent.formatter.TimeFormatter;
 import org.cubeengine.dirigent.formatter.WrappingPostProcessor;
+import org.cubeengine.dirigent.metrics.CompositeMetrics;
+import org.cubeengine.dirigent.metrics.DirigentMetrics;
+import org.cubeengine.dirigent.metrics.Phase;
+import org.cubeengine.dirigent.metrics.RecordingMetrics;
 import org.cubeengine.dirigent.parser.MacroResolutionResult;
 import org.cubeengine.dirigent.parser.MacroResolutionState;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
 import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.component.Component;
+import org.cubeengine.dirigent.parser.component.TextComponent;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.cubeengine.dirigent.TestHelper.elems;
+import static org.cubeengine.dirigent.TestHelper.named;
+import static org.cubeengine.dirigent.TestHelper.txt;
 import static org.cubeengine.dirigent.context.Contexts.createContext;
 import static org.junit.Assert.assertEquals;
 
@@ -300,4 +327,349 @@ public class StringBuilderDirigentTest
         Assert.assertEquals(MacroResolutionState.UNKNOWN_NAME, resolutionResult.getState());
         Assert.assertNull(resolutionResult.getFormatter());
     }
+
+    @Test
+    public void testComposeTemplate() throws Exception
+    {
+        Template template = dirigent.compile("msg: {number:format=#.0} and {string:uppercase}");
+        assertEquals("msg: 42,4 and A STRING",
+                     dirigent.compose(createContext(Locale.GERMANY), template, 42.4, "a string"));
+        assertEquals("msg: 42.4 and A STRING", dirigent.compose(createContext(Locale.US), template, 42.4, "a string"));
+    }
+
+    @Test
+    public void testComposeForAll() throws Exception
+    {
+        ContextFactory factory = new ContextFactory();
+        Context german = factory.create(Locale.GERMANY);
+        Context english = factory.create(Locale.US);
+        Template template = dirigent.compile("msg: {number:format=#.0}");
+
+        Map<Context, String> messages = dirigent.composeForAll(template, Arrays.asList(german, english, german,
+                                                                                          createContext(Locale.US)),
+                                                               42.4);
+        assertEquals(2, messages.size());
+        assertEquals("msg: 42,4", messages.get(german));
+        assertEquals("msg: 42.4", messages.get(english));
+    }
+
+    @Test
+    public void testCompileFoldsPureConstantMacros() throws Exception
+    {
+        Template template = dirigent.compile("Test: {number} and {text:static text} with {number}");
+        assertEquals(elems(txt("Test: "), named("number"), txt(" and static text with "), named("number")),
+                     template.getElements());
+        assertEquals("Test: 1 and static text with 2", dirigent.compose(createContext(Locale.US), template, 1, 2, 3));
+
+        template = dirigent.compile("{text:only} {text:static text}");
+        assertEquals(elems(txt("only static text")), template.getElements());
+    }
+
+    @Test
+    public void testCompileDoesNotFoldWithPostProcessors() throws Exception
+    {
+        Formatter<?> staticTextFormatter = new StaticTextFormatter().addPostProcessor(
+            new WrappingPostProcessor("<", ">"));
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(staticTextFormatter);
+        Template template = dirigent.compile("a {text:static} text");
+        assertEquals(elems(txt("a "), named("text", "static"), txt(" text")), template.getElements());
+        assertEquals("a <static> text", dirigent.compose(Contexts.EMPTY, template));
+
+        dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new StaticTextFormatter()).addPostProcessor(new WrappingPostProcessor("[", "]"));
+        template = dirigent.compile("a {text:static} text");
+        assertEquals(3, template.getElements().size());
+        assertEquals("[a ][static][ text]", dirigent.compose(Contexts.EMPTY, template));
+    }
+
+    @Test
+    public void testComposeAll() throws Exception
+    {
+        Template template = dirigent.compile("{}. {string:uppercase} with {number:format=#.0} points");
+        List<Object[]> rows = new ArrayList<Object[]>();
+        rows.add(new Object[]{1, "first", 42.43});
+        rows.add(new Object[]{2, "second", 12.0});
+        rows.add(new Object[]{3, "third", 7});
+
+        final List<String> messages = new ArrayList<String>();
+        dirigent.composeAll(createContext(Locale.GERMANY), template, rows, new MessageSink<String>()
+        {
+            @Override
+            public void accept(String message)
+            {
+                messages.add(message);
+            }
+        });
+        assertEquals(Arrays.asList("1. FIRST with 42,4 points", "2. SECOND with 12,0 points",
+                                   "3. THIRD with 7,0 points"), messages);
+    }
+
+    @Test
+    public void testComposeAllParallel() throws Exception
+    {
+        Template template = dirigent.compile("{}. {string:uppercase} with {number:format=#.0} points");
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 10000; ++i)
+        {
+            rows.add(new Object[]{i, "row", i / 10d});
+        }
+
+        final List<String> messages = new ArrayList<String>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            dirigent.composeAll(createContext(Locale.GERMANY), template, rows, new MessageSink<String>()
+            {
+                @Override
+                public void accept(String message)
+                {
+                    messages.add(message);
+                }
+            }, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals(rows.size(), messages.size());
+        assertEquals("0. ROW with ,0 points", messages.get(0));
+        assertEquals("1234. ROW with 123,4 points", messages.get(1234));
+        assertEquals("9999. ROW with 999,9 points", messages.get(9999));
+    }
+
+    @Test
+    public void testComposeCustomTextComponent() throws Exception
+    {
+        dirigent.registerFormatter(new AbstractFormatter<String>(String.class, "custom")
+        {
+            @Override
+            protected Component format(final String input, Context context, Arguments args)
+            {
+                return new TextComponent()
+                {
+                    @Override
+                    public String getText()
+                    {
+                        return "<" + input + ">";
+                    }
+                };
+            }
+        });
+
+        assertEquals("a <b> c", dirigent.compose(Contexts.EMPTY, "a {custom} c", "b"));
+    }
+
+    @Test
+    public void testComposePooled() throws Exception
+    {
+        dirigent.registerFormatter(new AbstractFormatter<String>(String.class, "nested")
+        {
+            @Override
+            protected Component format(String input, Context context, Arguments args)
+            {
+                return Text.create(dirigent.compose(context, "({string:uppercase})", input));
+            }
+        });
+        dirigent.setPooling(true);
+
+        Template template = dirigent.compile("{}. {nested} with {number:format=#.0} points");
+        Context german = createContext(Locale.GERMANY);
+        for (int i = 0; i < 3; ++i)
+        {
+            assertEquals(i + ". (ROW) with 1,5 points", dirigent.compose(german, template, i, "row", 1.5d));
+            assertEquals("a 1.5 b", dirigent.compose(createContext(Locale.US), "a {number} b", 1.5d));
+        }
+
+        final List<String> messages = new ArrayList<String>();
+        dirigent.composeAll(german, template, Arrays.asList(new Object[]{1, "a", 1d}, new Object[]{2, "b", 2d}),
+                            new MessageSink<String>()
+                            {
+                                @Override
+                                public void accept(String message)
+                                {
+                                    messages.add(message);
+                                }
+                            });
+        assertEquals(Arrays.asList("1. (A) with 1,0 points", "2. (B) with 2,0 points"), messages);
+    }
+
+    @Test
+    public void testConcurrentRegistration() throws Exception
+    {
+        final Template template = dirigent.compile("{string:uppercase} and {number:format=#.0}");
+        final Context context = createContext(Locale.GERMANY);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int t = 0; t < 4; ++t)
+            {
+                results.add(executor.submit(new Callable<String>()
+                {
+                    @Override
+                    public String call() throws Exception
+                    {
+                        String message = null;
+                        for (int i = 0; i < 2000; ++i)
+                        {
+                            message = dirigent.compose(context, template, "a", 1.5d);
+                        }
+                        return message;
+                    }
+                }));
+            }
+            for (int i = 0; i < 500; ++i)
+            {
+                dirigent.registerFormatter(new StringFormatter("string", "other" + i));
+                dirigent.registerFormatter(new NumberFormatter().addPostProcessor(new WrappingPostProcessor("<", ">")));
+            }
+            for (Future<String> result : results)
+            {
+                assertEquals("A and 1,5", result.get(10, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testComposeAsync() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(2);
+        dirigent.registerFormatter(new AbstractFormatter<String>(String.class, "lookup")
+        {
+            @Override
+            protected Component format(String input, Context context, Arguments args)
+            {
+                // both macros have to be formatted concurrently to pass the latch
+                latch.countDown();
+                try
+                {
+                    return Text.create(latch.await(5, TimeUnit.SECONDS) ? input + "!" : "timeout");
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public boolean isBlocking()
+            {
+                return true;
+            }
+        });
+
+        Template template = dirigent.compile("{lookup} meets {lookup} with {number:format=#.0} points");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<String> message = dirigent.composeAsync(executor, createContext(Locale.GERMANY), template, "Alice",
+                                                           "Bob", 1.5d);
+            assertEquals("Alice! meets Bob! with 1,5 points", message.get(10, TimeUnit.SECONDS));
+            assertEquals("Alice", dirigent.composeAsync(executor, Contexts.EMPTY, dirigent.compile("{}"), "Alice")
+                .get(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMetrics() throws Exception
+    {
+        RecordingMetrics metrics = new RecordingMetrics();
+        dirigent.setMetrics(metrics);
+        dirigent.addPostProcessor(new WrappingPostProcessor("[", "]"));
+        dirigent.setOutputCache(new OutputCache<String>(16));
+
+        Template template = dirigent.compile("{} has {number:format=#.0} points");
+        for (int i = 0; i < 3; ++i)
+        {
+            assertEquals("[Alice][ has ][1,5][ points]", dirigent.compose(createContext(Locale.GERMANY), template,
+                                                                          "Alice", 1.5d));
+        }
+        assertEquals("[1,5]", compose("{number:format=#.0}", 1.5d));
+
+        assertEquals(4, metrics.getMessages().getCount());
+        assertEquals(2, metrics.getPhase(Phase.PARSE).getCount());
+        assertEquals(2, metrics.getPhase(Phase.RESOLVE).getCount());
+        assertEquals(5, metrics.getPhase(Phase.POST_PROCESS).getCount());
+        assertEquals(2, metrics.getPhase(Phase.BUILD).getCount());
+        assertEquals(1, metrics.getFormatter("string").getCount());
+        assertEquals(2, metrics.getFormatter("decimal|double|float|number").getCount());
+        assertEquals(2, metrics.getFormatters().size());
+        assertEquals(2, metrics.getCacheHits());
+        assertEquals(1, metrics.getCacheMisses());
+        assertEquals(2d / 3, metrics.getCacheHitRate(), 0.001);
+
+        dirigent.setMetrics(null);
+        assertEquals(DirigentMetrics.NONE, dirigent.getMetrics());
+        compose("{number:format=#.0}", 1.5d);
+        assertEquals(2, metrics.getPhase(Phase.PARSE).getCount());
+        assertEquals(2, metrics.getFormatter("decimal|double|float|number").getCount());
+    }
+
+    @Test
+    public void testMetricsTraces() throws Exception
+    {
+        final List<String> traces = new ArrayList<String>();
+        DirigentMetrics tracing = new DirigentMetrics()
+        {
+            @Override
+            public boolean isTiming()
+            {
+                return false;
+            }
+
+            @Override
+            public Object beginCompose()
+            {
+                return "compose";
+            }
+
+            @Override
+            public void endCompose(Object trace, String key, String source, Object[] inputs)
+            {
+                traces.add(trace + " " + key + " " + source);
+            }
+
+            @Override
+            public Object beginFormat()
+            {
+                return "format";
+            }
+
+            @Override
+            public void endFormat(Object trace, Formatter<?> formatter, Object input)
+            {
+                traces.add(trace + " " + input);
+            }
+
+            @Override
+            public void composed(String source, Object[] inputs, long nanos)
+            {
+                throw new AssertionError("The duration isn't measured");
+            }
+        };
+        RecordingMetrics recording = new RecordingMetrics();
+        dirigent.setMetrics(tracing);
+
+        String source = "{} has {number:format=#.0} points";
+        Template template = dirigent.compile(new Template("score", source, Parser.parse(source)));
+        assertEquals("score", template.getKey());
+        assertEquals("Alice has 1,5 points", dirigent.compose(createContext(Locale.GERMANY), template, "Alice", 1.5d));
+        assertEquals(Arrays.asList("format Alice", "format 1.5", "compose score " + source), traces);
+
+        traces.clear();
+        dirigent.setMetrics(new CompositeMetrics(recording, tracing));
+        assertEquals("1,5", compose("{number:format=#.0}", 1.5d));
+        assertEquals(Arrays.asList("format 1.5", "compose null {number:format=#.0}"), traces);
+        assertEquals(1, recording.getMessages().getCount());
+    }
 }
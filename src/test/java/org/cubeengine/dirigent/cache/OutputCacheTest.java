@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.cache;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.formatter.StringFormatter;
+import org.cubeengine.dirigent.formatter.WrappingPostProcessor;
+import org.cubeengine.dirigent.parser.Template;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link OutputCache}.
+ */
+public class OutputCacheTest
+{
+    private final StringBuilderDirigent dirigent = new StringBuilderDirigent();
+    private final Context context = Contexts.createContext(Locale.US);
+
+    @Test
+    public void testIsCacheable()
+    {
+        Assert.assertTrue(OutputCache.isCacheable(new Object[0]));
+        Assert.assertTrue(OutputCache.isCacheable(new Object[]{"a", 1, 2L, 3.0, 'c', true, null, TimeUnit.DAYS}));
+        Assert.assertFalse(OutputCache.isCacheable(new Object[]{"a", new Date()}));
+        Assert.assertFalse(OutputCache.isCacheable(new Object[]{new StringBuilder("a")}));
+    }
+
+    @Test
+    public void testHitsAndMisses()
+    {
+        OutputCache<String> cache = new OutputCache<String>(10);
+        Template template = dirigent.compile("a template");
+
+        Assert.assertNull(cache.get(template, context, new Object[]{"a", 1}));
+        cache.put(template, context, new Object[]{"a", 1}, "message");
+
+        Assert.assertEquals("message", cache.get(template, context, new Object[]{"a", 1}));
+        Assert.assertNull(cache.get(template, context, new Object[]{"a", 2}));
+        Assert.assertNull(cache.get(template, Contexts.createContext(Locale.GERMANY), new Object[]{"a", 1}));
+        Assert.assertNull(cache.get(dirigent.compile("a template"), context, new Object[]{"a", 1}));
+
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(4, cache.getMisses());
+        Assert.assertEquals(0.2, cache.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testInputsAreCopied()
+    {
+        OutputCache<String> cache = new OutputCache<String>(10);
+        Template template = dirigent.compile("a template");
+        Object[] inputs = {"a"};
+
+        cache.put(template, context, inputs, "message");
+        inputs[0] = "b";
+
+        Assert.assertEquals("message", cache.get(template, context, new Object[]{"a"}));
+        Assert.assertNull(cache.get(template, context, inputs));
+    }
+
+    @Test
+    public void testSizeEviction()
+    {
+        OutputCache<String> cache = new OutputCache<String>(2);
+        Template template = dirigent.compile("a template");
+
+        cache.put(template, context, new Object[]{1}, "1");
+        cache.put(template, context, new Object[]{2}, "2");
+        cache.get(template, context, new Object[]{1});
+        cache.put(template, context, new Object[]{3}, "3");
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertEquals("1", cache.get(template, context, new Object[]{1}));
+        Assert.assertNull(cache.get(template, context, new Object[]{2}));
+        Assert.assertEquals("3", cache.get(template, context, new Object[]{3}));
+    }
+
+    @Test
+    public void testWeightEviction()
+    {
+        OutputCache<String> cache = new OutputCache<String>(10, new OutputCache.Weigher<String>()
+        {
+            @Override
+            public int weigh(String message)
+            {
+                return message.length();
+            }
+        });
+        Template template = dirigent.compile("a template");
+
+        cache.put(template, context, new Object[]{1}, "12345");
+        cache.put(template, context, new Object[]{2}, "1234");
+        Assert.assertEquals(9, cache.getWeight());
+
+        cache.put(template, context, new Object[]{3}, "123");
+        Assert.assertEquals(7, cache.getWeight());
+        Assert.assertNull(cache.get(template, context, new Object[]{1}));
+
+        cache.put(template, context, new Object[]{4}, "12345678901");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get(template, context, new Object[]{4}));
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        OutputCache<String> cache = new OutputCache<String>(10);
+        Template template = dirigent.compile("a template");
+
+        long generation = cache.getGeneration();
+        cache.put(template, context, new Object[]{1}, "1", generation);
+        cache.invalidate();
+        cache.put(template, context, new Object[]{2}, "2", generation);
+        Assert.assertEquals(0, cache.size());
+        cache.put(template, context, new Object[]{3}, "3", cache.getGeneration());
+        Assert.assertEquals("3", cache.get(template, context, new Object[]{3}));
+    }
+
+    @Test
+    public void testSegmentedEviction()
+    {
+        OutputCache<String> cache = new OutputCache<String>(1000);
+        Template template = dirigent.compile("a template");
+
+        for (int i = 0; i < 5000; ++i)
+        {
+            cache.put(template, context, new Object[]{i}, String.valueOf(i));
+            Assert.assertEquals(String.valueOf(i), cache.get(template, context, new Object[]{i}));
+        }
+        Assert.assertTrue(cache.size() <= 1000);
+        Assert.assertTrue(cache.size() > 900);
+        Assert.assertEquals(cache.size(), cache.getWeight());
+        Assert.assertEquals(5000 - cache.size(), cache.getEvictions());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testDirigentIntegration()
+    {
+        OutputCache<String> cache = new OutputCache<String>(10);
+        dirigent.setOutputCache(cache).registerFormatter(new NumberFormatter());
+        Template template = dirigent.compile("{} has {number} items");
+
+        Assert.assertEquals("abc has 4.5 items", dirigent.compose(context, template, "abc", 4.5));
+        Assert.assertEquals("abc has 4.5 items", dirigent.compose(context, template, "abc", 4.5));
+        Assert.assertEquals("abc has 5 items", dirigent.compose(context, template, "abc", 5));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+
+        Assert.assertEquals("abc has 4.5 items", dirigent.compose(context, template, new StringBuilder("abc"), 4.5));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+
+        dirigent.addPostProcessor(new WrappingPostProcessor("[", "]"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals("[abc][ has ][4.5][ items]", dirigent.compose(context, template, "abc", 4.5));
+        Assert.assertEquals(1, cache.size());
+        dirigent.registerFormatter(new StringFormatter());
+        Assert.assertEquals(0, cache.size());
+    }
+}
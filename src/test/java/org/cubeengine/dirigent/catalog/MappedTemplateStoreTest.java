@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.formatter.StaticTextFormatter;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.element.Element;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.cubeengine.dirigent.context.Contexts.createContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MappedTemplateStoreTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCodecRoundTrip() throws Exception
+    {
+        String source = "Text \\{escaped} {} {1} {name} {2:number:format=#.0:short} {text:a\\:b} ü";
+        ByteBuffer encoded = ByteBuffer.wrap(TemplateCodec.encode(new Template(source, Parser.parse(source))));
+        Template decoded = TemplateCodec.decode(encoded);
+        assertEquals(source, decoded.getSource());
+        assertEquals(Parser.parse(source), decoded.getElements());
+        assertEquals(0, encoded.remaining());
+    }
+
+    @Test
+    public void testLookup() throws Exception
+    {
+        Map<Locale, Map<String, String>> messages = new HashMap<Locale, Map<String, String>>();
+        messages.put(Locale.ROOT, messages("greeting", "Hello {}!", "score", "Score: {number:format=#.0}"));
+        messages.put(Locale.GERMAN, messages("greeting", "Hallo {}!"));
+        messages.put(new Locale("de", "AT"), messages("greeting", "Servus {}!"));
+        for (int i = 0; i < 100; ++i)
+        {
+            messages.get(Locale.ROOT).put("key" + i, "Message " + i);
+        }
+
+        File file = folder.newFile("messages.bin");
+        MappedTemplateStore.write(file, messages);
+        MappedTemplateStore store = MappedTemplateStore.open(file, 10);
+        assertEquals(104, store.size());
+        assertEquals(0, store.getCachedSize());
+
+        Template greeting = store.get("greeting", new Locale("de", "AT"));
+        assertEquals("Servus {}!", greeting.getSource());
+        assertSame(greeting, store.get("greeting", new Locale("de", "AT")));
+        assertEquals("Hallo {}!", store.get("greeting", Locale.GERMANY).getSource());
+        assertEquals("Hello {}!", store.get("greeting", Locale.FRENCH).getSource());
+        assertNull(store.get("missing", Locale.GERMAN));
+        assertNull(store.get("missing", Locale.GERMAN));
+        assertNull(store.getExact("score", Locale.GERMAN));
+        assertSame(store.getExact("greeting", Locale.GERMAN), store.get("greeting", Locale.GERMANY));
+        assertEquals(1, store.getResolvedCount(Locale.GERMANY));
+        assertEquals(1, store.getResolvedCount(Locale.GERMAN));
+
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new NumberFormatter());
+        assertEquals("Score: 1,5", dirigent.compose(createContext(Locale.GERMAN), store.get("score", Locale.GERMAN),
+                                                    1.5d));
+
+        for (int i = 0; i < 100; ++i)
+        {
+            assertEquals("Message " + i, store.get("key" + i, Locale.ROOT).getSource());
+        }
+        assertEquals(10, store.getCachedSize());
+    }
+
+    @Test
+    public void testRead() throws Exception
+    {
+        Map<Locale, Map<String, String>> messages = new HashMap<Locale, Map<String, String>>();
+        messages.put(Locale.ROOT, messages("greeting", "Hello {}!"));
+        File file = folder.newFile("messages.bin");
+        MappedTemplateStore.write(file, messages);
+
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            MappedTemplateStore store = MappedTemplateStore.read(in, 10);
+            assertEquals("Hello {}!", store.get("greeting", Locale.GERMAN).getSource());
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testCompile() throws Exception
+    {
+        Map<Locale, Map<String, String>> messages = new HashMap<Locale, Map<String, String>>();
+        messages.put(Locale.ROOT, messages("greeting", "{text:Hello} there"));
+        File file = folder.newFile("messages.bin");
+        MappedTemplateStore.write(file, messages);
+
+        assertEquals(Parser.parse("{text:Hello} there"),
+                     MappedTemplateStore.open(file, 10).get("greeting", Locale.ROOT).getElements());
+
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new StaticTextFormatter());
+        MappedTemplateStore store = MappedTemplateStore.open(file, 10, dirigent);
+        Template greeting = store.get("greeting", Locale.ROOT);
+        assertEquals("{text:Hello} there", greeting.getSource());
+        assertEquals(Collections.<Element>singletonList(new Text("Hello there")), greeting.getElements());
+        assertSame(greeting, store.getExact("greeting", Locale.ROOT));
+    }
+
+    @Test
+    public void testSegmentedCache() throws Exception
+    {
+        Map<Locale, Map<String, String>> messages = new HashMap<Locale, Map<String, String>>();
+        messages.put(Locale.ROOT, new HashMap<String, String>());
+        for (int i = 0; i < 2000; ++i)
+        {
+            messages.get(Locale.ROOT).put("key" + i, "Message " + i);
+        }
+        File file = folder.newFile("messages.bin");
+        MappedTemplateStore.write(file, messages);
+        MappedTemplateStore store = MappedTemplateStore.open(file, 1000);
+
+        for (int i = 0; i < 2000; ++i)
+        {
+            assertEquals("Message " + i, store.get("key" + i, Locale.ROOT).getSource());
+        }
+        assertTrue(store.getCachedSize() <= 1000);
+        Template last = store.get("key1999", Locale.ROOT);
+        assertSame(last, store.get("key1999", Locale.ROOT));
+    }
+
+    private static Map<String, String> messages(String... keysAndValues)
+    {
+        Map<String, String> messages = new HashMap<String, String>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            messages.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return messages;
+    }
+}
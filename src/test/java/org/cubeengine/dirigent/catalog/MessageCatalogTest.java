@@ -0,0 +1,229 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.cache.OutputCache;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.parser.Template;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.cubeengine.dirigent.context.Contexts.createContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MessageCatalogTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MessageCatalog<String> catalog;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        write("messages.properties", "greeting=Hello {}!\nscore=Score: {number:format=#.0}\n");
+        write("messages_de.yml", "greeting: Hallo {}!\nscore: 'Punkte: {number:format=#.0}'\n");
+        write("messages_de_AT.yml", "greeting: Servus {}!\n");
+        write("other_fr.yml", "greeting: Bonjour {}!\n");
+
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new NumberFormatter());
+        catalog = new MessageCatalog<String>(dirigent, new DirectorySource(folder.getRoot(), "messages"));
+        catalog.reload();
+    }
+
+    private void write(String name, String content) throws IOException
+    {
+        File file = new File(folder.getRoot(), name);
+        long lastModified = file.lastModified();
+        // a watching catalog must never see a partially written file, so the file is replaced at once
+        File written = new File(folder.getRoot(), "." + name + ".tmp");
+        OutputStream out = new FileOutputStream(written);
+        try
+        {
+            out.write(content.getBytes("UTF-8"));
+        }
+        finally
+        {
+            out.close();
+        }
+        // the resolution of the modification time might be too coarse to notice the change
+        written.setLastModified(Math.max(written.lastModified(), lastModified + 2000));
+        if (!written.renameTo(file))
+        {
+            throw new IOException("Can't replace " + file);
+        }
+    }
+
+    @Test
+    public void testFallbacks() throws Exception
+    {
+        assertEquals(Arrays.asList(new Locale("de", "AT", "x"), new Locale("de", "AT"), new Locale("de"), Locale.ROOT),
+                     CatalogSnapshot.fallbacks(new Locale("de", "AT", "x")));
+        assertEquals(Arrays.asList(Locale.ROOT), CatalogSnapshot.fallbacks(Locale.ROOT));
+
+        assertEquals("Servus Alice!", catalog.compose(createContext(new Locale("de", "AT")), "greeting", "Alice"));
+        assertEquals("Punkte: 1,5", catalog.compose(createContext(new Locale("de", "AT")), "score", 1.5d));
+        assertEquals("Hallo Alice!", catalog.compose(createContext(Locale.GERMANY), "greeting", "Alice"));
+        assertEquals("Hello Alice!", catalog.compose(createContext(Locale.FRENCH), "greeting", "Alice"));
+        assertEquals("missing", catalog.compose(createContext(Locale.FRENCH), "missing"));
+        assertNull(catalog.get("missing", Locale.GERMAN));
+        assertEquals(3, catalog.getSnapshot().getLocales().size());
+        assertEquals(5, catalog.getSnapshot().size());
+    }
+
+    @Test
+    public void testLookupsAreCached() throws Exception
+    {
+        Locale austria = new Locale("de", "AT");
+        CatalogSnapshot snapshot = catalog.getSnapshot();
+        assertSame(snapshot.getExact("score", Locale.GERMAN), snapshot.get("score", austria));
+        assertSame(snapshot.getExact("score", Locale.GERMAN), snapshot.get("score", austria));
+        assertNull(snapshot.get("farewell", austria));
+        assertNull(snapshot.get("farewell", austria));
+        assertEquals(2, snapshot.getResolvedCount(austria));
+        assertEquals(0, snapshot.getResolvedCount(Locale.GERMAN));
+
+        for (int i = 0; i < FallbackCache.MAX_MISSING + 10; i++)
+        {
+            assertNull(snapshot.get("unknown" + i, austria));
+        }
+        assertEquals(FallbackCache.MAX_MISSING + 1, snapshot.getResolvedCount(austria));
+
+        write("messages_de.yml", "greeting: Hallo {}!\nfarewell: Tschüss {}!\n");
+        assertTrue(catalog.reloadIfChanged());
+        assertEquals("Tschüss {}!", catalog.get("farewell", austria).getSource());
+        assertEquals("farewell", catalog.get("farewell", austria).getKey());
+        assertEquals("Score: {number:format=#.0}", catalog.get("score", austria).getSource());
+        assertNull(snapshot.get("farewell", austria));
+    }
+
+    @Test
+    public void testMissingKeysAreCached() throws Exception
+    {
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        OutputCache<String> cache = new OutputCache<String>(10);
+        dirigent.setOutputCache(cache);
+        catalog = new MessageCatalog<String>(dirigent, new DirectorySource(folder.getRoot(), "messages"));
+
+        assertEquals("missing", catalog.compose(createContext(Locale.FRENCH), "missing"));
+        assertEquals("missing", catalog.compose(createContext(Locale.FRENCH), "missing"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testReloadCompilesChangedMessagesOnly() throws Exception
+    {
+        CatalogSnapshot before = catalog.getSnapshot();
+        assertFalse(catalog.reloadIfChanged());
+        assertEquals(0, catalog.reload());
+        assertSame(before, catalog.getSnapshot());
+
+        write("messages_de.yml", "greeting: Guten Tag {}!\nscore: 'Punkte: {number:format=#.0}'\n");
+        assertTrue(catalog.reloadIfChanged());
+        CatalogSnapshot after = catalog.getSnapshot();
+        assertNotSame(before, after);
+        assertEquals("Guten Tag {}!", after.getExact("greeting", Locale.GERMAN).getSource());
+        assertEquals("Hallo {}!", before.getExact("greeting", Locale.GERMAN).getSource());
+        assertSame(before.getExact("score", Locale.GERMAN), after.getExact("score", Locale.GERMAN));
+        assertSame(before.getExact("greeting", Locale.ROOT), after.getExact("greeting", Locale.ROOT));
+
+        write("messages_de.yml", "greeting: Guten Tag {}!\n");
+        assertEquals(0, catalog.reload());
+        assertEquals(4, catalog.getSnapshot().size());
+        assertEquals("Score: 1,5", catalog.compose(createContext(Locale.GERMAN), "score", 1.5d));
+    }
+
+    @Test
+    public void testStoreBackend() throws Exception
+    {
+        Map<Locale, Map<String, String>> messages = new HashMap<Locale, Map<String, String>>();
+        messages.put(Locale.ROOT, Collections.singletonMap("score", "Score: {number:format=#.0}"));
+        File file = folder.newFile("messages.bin");
+        MappedTemplateStore.write(file, messages);
+
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new NumberFormatter());
+        MappedTemplateStore store = MappedTemplateStore.open(file, 10, dirigent);
+        MessageCatalog<String> catalog = new MessageCatalog<String>(dirigent, store);
+        assertSame(store, catalog.getStore());
+        assertEquals("score", catalog.get("score", Locale.GERMAN).getKey());
+        assertEquals("Score: 1,5", catalog.compose(createContext(Locale.GERMAN), "score", 1.5d));
+        assertEquals("missing", catalog.compose(createContext(Locale.GERMAN), "missing"));
+        assertEquals(0, catalog.reload());
+        assertFalse(catalog.reloadIfChanged());
+        assertSame(CatalogSnapshot.EMPTY, catalog.getSnapshot());
+    }
+
+    @Test
+    public void testWatch() throws Exception
+    {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            catalog.watch(executor, 10, TimeUnit.MILLISECONDS);
+            write("messages_de_AT.yml", "greeting: Griaß di {}!\n");
+
+            Template template = null;
+            for (int i = 0; i < 500 && (template == null || !template.getSource().startsWith("Griaß")); ++i)
+            {
+                Thread.sleep(10);
+                template = catalog.get("greeting", new Locale("de", "AT"));
+            }
+            assertEquals("Griaß di {}!", template.getSource());
+
+            write("messages_de_AT.yml", "greeting: \"broken\n");
+            for (int i = 0; i < 500 && catalog.getReloadFailure() == null; ++i)
+            {
+                Thread.sleep(10);
+            }
+            assertTrue(catalog.getReloadFailure() instanceof IOException);
+            assertEquals("Griaß di {}!", catalog.get("greeting", new Locale("de", "AT")).getSource());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.catalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessageFilesTest
+{
+    private static Map<String, String> yaml(String content) throws IOException
+    {
+        return MessageFiles.readYaml(new ByteArrayInputStream(content.getBytes("UTF-8")), "test.yml");
+    }
+
+    @Test
+    public void testYamlSections() throws Exception
+    {
+        Map<String, String> messages = yaml("# comment\n"
+                                                + "chat:\n"
+                                                + "  join: {} joined the game\n"
+                                                + "  admin:\n"
+                                                + "    kick: {0} was kicked by {1} # who did it\n"
+                                                + "  leave: {} left\n"
+                                                + "\n"
+                                                + "title: Welcome!\n");
+        assertEquals(4, messages.size());
+        assertEquals("{} joined the game", messages.get("chat.join"));
+        assertEquals("{0} was kicked by {1}", messages.get("chat.admin.kick"));
+        assertEquals("{} left", messages.get("chat.leave"));
+        assertEquals("Welcome!", messages.get("title"));
+    }
+
+    @Test
+    public void testYamlQuotedValues() throws Exception
+    {
+        Map<String, String> messages = yaml("a: \"line\\nnext \\\"quoted\\\" \\{escaped} # no comment\"\n"
+                                                + "b: 'it''s: {number}'\n"
+                                                + "c: key:value\n");
+        assertEquals("line\nnext \"quoted\" \\{escaped} # no comment", messages.get("a"));
+        assertEquals("it's: {number}", messages.get("b"));
+        assertEquals("key:value", messages.get("c"));
+    }
+
+    @Test
+    public void testYamlComments() throws Exception
+    {
+        Map<String, String> messages = yaml("a: {number:plural:one=found # item:other=found # items} # count\n"
+                                                + "b: \"quoted\" # trailing\n"
+                                                + "c: 'it''s' # trailing\n"
+                                                + "d: \\{not a macro # comment\n");
+        assertEquals("{number:plural:one=found # item:other=found # items}", messages.get("a"));
+        assertEquals("quoted", messages.get("b"));
+        assertEquals("it's", messages.get("c"));
+        assertEquals("\\{not a macro", messages.get("d"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testYamlTextAfterQuote() throws Exception
+    {
+        yaml("a: \"quoted\" text\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void testYamlMissingSeparator() throws Exception
+    {
+        yaml("chat\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void testYamlUnterminatedQuote() throws Exception
+    {
+        yaml("a: \"open\n");
+    }
+
+    @Test
+    public void testProperties() throws Exception
+    {
+        Map<String, String> messages = MessageFiles.readProperties(
+            new ByteArrayInputStream("greeting=Gr\u00fc\u00df {}\n".getBytes("UTF-8")));
+        assertEquals("Gr\u00fc\u00df {}", messages.get("greeting"));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.codegen;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.formatter.AbstractFormatter;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.formatter.StaticTextFormatter;
+import org.cubeengine.dirigent.formatter.WrappingPostProcessor;
+import org.cubeengine.dirigent.metrics.DirigentMetrics;
+import org.cubeengine.dirigent.metrics.RecordingMetrics;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.component.Component;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.cubeengine.dirigent.context.Contexts.createContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TemplateClassGeneratorTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMethodName()
+    {
+        assertEquals("greeting", TemplateClassGenerator.methodName("greeting"));
+        assertEquals("playerJoinMessage", TemplateClassGenerator.methodName("player.join-message"));
+        assertEquals("_404", TemplateClassGenerator.methodName("404"));
+        assertEquals("_class", TemplateClassGenerator.methodName("class"));
+        assertEquals("_toString", TemplateClassGenerator.methodName("toString"));
+        assertEquals("_", TemplateClassGenerator.methodName("..."));
+    }
+
+    @Test
+    public void testGenerate()
+    {
+        Map<String, String> messages = new LinkedHashMap<String, String>();
+        messages.put("plain", "Just \"text\" \\ */ \u00e4");
+        messages.put("greeting", "Hello {}!");
+
+        String source = TemplateClassGenerator.generate("org.example", "Messages", messages);
+        assertTrue(source.contains("package org.example;"));
+        assertTrue(source.contains("public final class Messages extends CompiledMessages"));
+        assertTrue(source.contains("return \"Just \\\"text\\\" \\\\ */ \\u00e4\";"));
+        assertTrue(source.contains("out.append(\"Hello \");"));
+        assertTrue(source.contains("m0_1 = macro(0, 1);"));
+        assertTrue(source.contains("Composes the message <code>plain</code>: <code>Just \"text\" &#92; *&#47; &#228;"));
+    }
+
+    @Test
+    public void testCompiledMessagesComposeLikeTheDirigent() throws Exception
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        Map<String, String> messages = new LinkedHashMap<String, String>();
+        messages.put("plain", "Nothing to format \\{here}");
+        messages.put("greeting", "Hello {}!");
+        messages.put("score", "{0} has {1:number:format=#.00} points{text:!}");
+        messages.put("implicit", "{text:>}{} and {}{text:<}");
+        messages.put("unresolved", "{} and {unknown}");
+        messages.put("custom", "[{custom}]");
+
+        File sources = folder.newFolder("sources");
+        File classes = folder.newFolder("classes");
+        File file = new File(sources, "Messages.java");
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(TemplateClassGenerator.generate("", "Messages", messages).getBytes("UTF-8"));
+        }
+        finally
+        {
+            out.close();
+        }
+        String classPath = System.getProperty("java.class.path");
+        assertEquals(0, compiler.run(null, null, null, "-cp", classPath, "-d", classes.getPath(), file.getPath()));
+
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new NumberFormatter());
+        dirigent.registerFormatter(new StaticTextFormatter("text"));
+        dirigent.registerFormatter(new AbstractFormatter<Object>("custom")
+        {
+            @Override
+            protected Component format(Object input, Context context, Arguments args)
+            {
+                return new Text("custom " + input);
+            }
+        });
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+        Class<?> type = loader.loadClass("Messages");
+        CompiledMessages compiled = (CompiledMessages)type.getConstructor(StringBuilderDirigent.class).newInstance(
+            dirigent);
+
+        Context context = createContext(Locale.US);
+        Object[] inputs = {"Alice", 12.5d, "Bob"};
+        assertEquals("Nothing to format {here}", compose(compiled, "plain", context, inputs));
+        assertEquals("Hello Alice!", compose(compiled, "greeting", context, inputs));
+        assertEquals("Alice has 12.50 points!", compose(compiled, "score", context, inputs));
+        assertEquals(">Alice and 12.5<", compose(compiled, "implicit", context, inputs));
+        assertEquals("Alice and {{unresolved: unknown}}", compose(compiled, "unresolved", context, inputs));
+        assertEquals("[custom Alice]", compose(compiled, "custom", context, inputs));
+
+        for (String key : messages.keySet())
+        {
+            assertEquals(dirigent.compose(context, messages.get(key), inputs), compose(compiled, key, context, inputs));
+        }
+
+        dirigent.setMetrics(new RecordingMetrics());
+        assertEquals("Hello Alice!", compose(compiled, "greeting", context, inputs));
+        assertEquals(1, ((RecordingMetrics)dirigent.getMetrics()).getMessages().getCount());
+        dirigent.setMetrics(new DirigentMetrics()
+        {
+            @Override
+            public boolean isTiming()
+            {
+                return false;
+            }
+
+            @Override
+            public Object beginCompose()
+            {
+                throw new AssertionError("Traces don't disable the generated code");
+            }
+        });
+        assertEquals("Hello Alice!", compose(compiled, "greeting", context, inputs));
+        dirigent.setMetrics(null);
+
+        dirigent.addPostProcessor(new WrappingPostProcessor("(", ")"));
+        assertEquals("(Hello )(Alice)(!)", compose(compiled, "greeting", context, inputs));
+    }
+
+    private static String compose(CompiledMessages messages, String key, Context context, Object[] inputs)
+        throws Exception
+    {
+        Method method = messages.getClass().getMethod(TemplateClassGenerator.methodName(key), Context.class,
+                                                      Object[].class);
+        return (String)method.invoke(messages, context, inputs);
+    }
+}
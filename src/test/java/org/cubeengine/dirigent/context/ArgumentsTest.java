@@ -126,6 +126,18 @@ public class ArgumentsTest
         Assert.assertTrue(arguments.hasIgnoringCase(SECOND_VALUE.toUpperCase()));
     }
 
+    @Test
+    public void testGetTemplate()
+    {
+        final Arguments arguments = create();
+
+        Assert.assertEquals(FIRST_VALUE, arguments.getTemplate(FIRST_KEY).getSource());
+        Assert.assertSame(arguments.getTemplate(FIRST_KEY), arguments.getTemplate(FIRST_KEY));
+        Assert.assertSame(arguments.getTemplate(1), arguments.getTemplate(1));
+        Assert.assertNull(arguments.getTemplate("blub"));
+        Assert.assertNull(arguments.getTemplate(3));
+    }
+
     private Arguments create()
     {
         final Map<String, String> params = new HashMap<String, String>();
@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.context;
+
+import java.util.Locale;
+import java.util.TimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ContextFactory} class.
+ */
+public class ContextFactoryTest
+{
+    @Test
+    public void testCreateLocaleContextIsInterned()
+    {
+        ContextFactory factory = new ContextFactory();
+        Context context = factory.create(Locale.GERMANY);
+
+        Assert.assertSame(context, factory.create(Locale.GERMANY));
+        Assert.assertSame(context, factory.create(new Locale("de", "DE")));
+        Assert.assertSame(context, factory.create(Contexts.LOCALE.with(Locale.GERMANY)));
+        Assert.assertEquals(Locale.GERMANY, context.get(Contexts.LOCALE));
+        Assert.assertNotSame(context, factory.create(Locale.US));
+    }
+
+    @Test
+    public void testIntern()
+    {
+        ContextFactory factory = new ContextFactory();
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        Context first = Contexts.createContext(Contexts.LOCALE.with(Locale.US), Contexts.TIMEZONE.with(utc));
+        Context second = Contexts.createContext(Contexts.TIMEZONE.with(utc), Contexts.LOCALE.with(Locale.US));
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        Assert.assertSame(first, factory.intern(first));
+        Assert.assertSame(first, factory.intern(second));
+    }
+
+    @Test
+    public void testPreloadAndClear()
+    {
+        ContextFactory factory = new ContextFactory().preload(Locale.GERMANY, Locale.US, Locale.GERMANY);
+        Assert.assertEquals(2, factory.size());
+
+        Context context = factory.create(Locale.US);
+        Assert.assertEquals(2, factory.size());
+
+        factory.clear();
+        Assert.assertEquals(0, factory.size());
+        Assert.assertNotSame(context, factory.create(Locale.US));
+    }
+}
@@ -95,6 +95,16 @@ public class NumberFormatterTest
         checkFormat("12.345,344", 12345.3441, Locale.GERMANY, null, null);
     }
 
+    @Test
+    public void testProcessTo()
+    {
+        StringBuilder out = new StringBuilder("a ");
+        Assert.assertTrue(numberFormatter.processTo(12345.5, createContext(Locale.GERMANY),
+                                                    toArgs(arg(NumberFormatter.FORMAT_PARAM_NAME, "#,###.0")), out));
+        Assert.assertTrue(numberFormatter.processTo(7, createContext(Locale.GERMANY), Arguments.NONE, out));
+        Assert.assertEquals("a 12.345,57", out.toString());
+    }
+
     private void checkFormat(final String expected, final Number number, final Locale locale, final String mode,
                              final String value)
     {
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.formatter;
+
+import java.util.Locale;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.parser.Template;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.cubeengine.dirigent.context.Contexts.createContext;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link PluralFormatter}.
+ */
+public class PluralFormatterTest
+{
+    private StringBuilderDirigent dirigent;
+
+    @Before
+    public void setUp()
+    {
+        dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new PluralFormatter());
+    }
+
+    @Test
+    public void testCategories()
+    {
+        Template template = dirigent.compile("You have {plural:0=no items:one=# item:other=# items}.");
+        assertEquals("You have no items.", dirigent.compose(createContext(Locale.US), template, 0));
+        assertEquals("You have 1 item.", dirigent.compose(createContext(Locale.US), template, 1));
+        assertEquals("You have 1,500 items.", dirigent.compose(createContext(Locale.US), template, 1500));
+        assertEquals("You have 2.5 items.", dirigent.compose(createContext(Locale.US), template, 2.5d));
+        assertEquals("You have 1.000 items.", dirigent.compose(createContext(Locale.GERMANY), template, 1000));
+    }
+
+    @Test
+    public void testLocaleRules()
+    {
+        Template template = dirigent.compile("{plural:one=# файл:few=# файла:many=# файлов}");
+        Locale russian = new Locale("ru");
+        assertEquals("1 файл", dirigent.compose(createContext(russian), template, 1));
+        assertEquals("3 файла", dirigent.compose(createContext(russian), template, 3));
+        assertEquals("11 файлов", dirigent.compose(createContext(russian), template, 11));
+        assertEquals("21 файл", dirigent.compose(createContext(russian), template, 21));
+    }
+
+    @Test
+    public void testPlaceholders()
+    {
+        assertEquals("#1 of 1", dirigent.compose(createContext(Locale.US), "{plural:other=\\## of #}", 1));
+        assertEquals("many", dirigent.compose(createContext(Locale.US), "{plural:other=many}", 1));
+        assertEquals("7", dirigent.compose(createContext(Locale.US), "{plural:one=one}", 7));
+    }
+
+    @Test
+    public void testNestedMacros()
+    {
+        dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new PluralFormatter(dirigent));
+        dirigent.registerFormatter(new NumberFormatter());
+
+        Template template = dirigent.compile("{plural:one=one item:other={number\\:format=#,##0.0\\}\\: # items}!");
+        assertEquals("one item!", dirigent.compose(createContext(Locale.US), template, 1));
+        assertEquals("1,500.0: 1,500 items!", dirigent.compose(createContext(Locale.US), template, 1500));
+        assertEquals("{{unresolved: x}} {{unresolved: x}}",
+                     dirigent.compose(createContext(Locale.US), "{plural:other={x\\}} {x}", 2));
+    }
+
+    @Test
+    public void testNestedMacrosWithoutDirigent()
+    {
+        assertEquals("2 of {{unresolved: number}}",
+                     dirigent.compose(createContext(Locale.US), "{plural:other=# of {number\\}}", 2));
+    }
+}
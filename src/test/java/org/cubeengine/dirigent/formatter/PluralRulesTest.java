@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.formatter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.cubeengine.dirigent.formatter.PluralRules.Category.FEW;
+import static org.cubeengine.dirigent.formatter.PluralRules.Category.MANY;
+import static org.cubeengine.dirigent.formatter.PluralRules.Category.ONE;
+import static org.cubeengine.dirigent.formatter.PluralRules.Category.OTHER;
+import static org.cubeengine.dirigent.formatter.PluralRules.Category.TWO;
+import static org.cubeengine.dirigent.formatter.PluralRules.Category.ZERO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the {@link PluralRules}.
+ */
+public class PluralRulesTest
+{
+    @Test
+    public void testForLocale()
+    {
+        assertSame(PluralRules.ONE_OTHER, PluralRules.forLocale(Locale.GERMANY));
+        assertSame(PluralRules.ONE_OTHER, PluralRules.forLocale(Locale.ROOT));
+        assertSame(PluralRules.ZERO_ONE_OTHER, PluralRules.forLocale(Locale.CANADA_FRENCH));
+        assertSame(PluralRules.EAST_SLAVIC, PluralRules.forLocale(new Locale("ru")));
+        assertSame(PluralRules.NONE, PluralRules.forLocale(Locale.JAPAN));
+    }
+
+    @Test
+    public void testSelect()
+    {
+        PluralRules english = PluralRules.ONE_OTHER;
+        assertEquals(OTHER, english.select(0));
+        assertEquals(ONE, english.select(1));
+        assertEquals(OTHER, english.select(2));
+        assertEquals(ONE, PluralRules.ZERO_ONE_OTHER.select(0));
+
+        PluralRules russian = PluralRules.EAST_SLAVIC;
+        assertEquals(ONE, russian.select(1));
+        assertEquals(ONE, russian.select(21));
+        assertEquals(MANY, russian.select(11));
+        assertEquals(FEW, russian.select(3));
+        assertEquals(FEW, russian.select(104));
+        assertEquals(MANY, russian.select(112));
+        assertEquals(MANY, russian.select(5));
+
+        PluralRules polish = PluralRules.POLISH;
+        assertEquals(ONE, polish.select(1));
+        assertEquals(MANY, polish.select(21));
+        assertEquals(FEW, polish.select(22));
+
+        PluralRules arabic = PluralRules.ARABIC;
+        assertEquals(ZERO, arabic.select(0));
+        assertEquals(TWO, arabic.select(2));
+        assertEquals(FEW, arabic.select(103));
+        assertEquals(MANY, arabic.select(111));
+        assertEquals(OTHER, arabic.select(100));
+    }
+
+    @Test
+    public void testSelectNumber()
+    {
+        PluralRules english = PluralRules.ONE_OTHER;
+        assertEquals(ONE, english.select((Number)(-1)));
+        assertEquals(ONE, english.select((Number)1.0d));
+        assertEquals(OTHER, english.select((Number)1.5d));
+        assertEquals(OTHER, english.select((Number)Double.NaN));
+        assertEquals(ONE, english.select(new BigDecimal("1.00")));
+        assertEquals(OTHER, english.select(new BigDecimal("1.10")));
+        assertEquals(OTHER, english.select(new BigInteger("100000000000000000001")));
+        assertEquals(OTHER, english.select((Number)Long.MIN_VALUE));
+
+        PluralRules russian = PluralRules.EAST_SLAVIC;
+        assertEquals(ONE, russian.select(new BigInteger("100000000000000000001")));
+        assertEquals(MANY, russian.select((Number)1e20d));
+        assertEquals(FEW, russian.select((Number)(1e15d + 2)));
+        assertEquals(MANY, russian.select((Number)Long.MIN_VALUE));
+    }
+}
@@ -47,6 +47,16 @@ public class StaticTextFormatterTest
         checkFormat("some Text", Locale.GERMANY, "some Text");
     }
 
+    @Test
+    public void testFold()
+    {
+        Assert.assertTrue(staticTextFormatter.isPure());
+        Assert.assertEquals(new Text("some Text"), staticTextFormatter.fold(toArgs(arg("some Text"))));
+
+        staticTextFormatter.addPostProcessor(new WrappingPostProcessor("<", ">"));
+        Assert.assertNull(staticTextFormatter.fold(toArgs(arg("some Text"))));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testInputValidationNull()
     {
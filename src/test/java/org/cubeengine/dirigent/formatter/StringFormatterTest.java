@@ -24,7 +24,9 @@ package org.cubeengine.dirigent.formatter;
 
 import java.util.Locale;
 import org.cubeengine.dirigent.parser.component.Component;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
 import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Context;
 import org.cubeengine.dirigent.parser.Text;
 import org.junit.Assert;
 import org.junit.Test;
@@ -48,6 +50,55 @@ public class StringFormatterTest
         checkFormat("SOMETHING", "someTHING", Locale.GERMANY, StringFormatter.UPPERCASE_FLAG);
     }
 
+    @Test
+    public void testProcessTo()
+    {
+        StringBuilder out = new StringBuilder("a ");
+        Assert.assertTrue(stringFormatter.processTo("someTHING", createContext(Locale.GERMANY),
+                                                    toArgs(arg(StringFormatter.UPPERCASE_FLAG)), out));
+        Assert.assertEquals("a SOMETHING", out.toString());
+
+        stringFormatter.addPostProcessor(new WrappingPostProcessor("<", ">"));
+        Assert.assertFalse(stringFormatter.processTo("something", createContext(Locale.GERMANY), Arguments.NONE, out));
+        Assert.assertEquals("a SOMETHING", out.toString());
+    }
+
+    @Test
+    public void testProcessToWithOverriddenFormat()
+    {
+        StringFormatter formatter = new StringFormatter()
+        {
+            @Override
+            protected Component format(Object input, Context context, Arguments args)
+            {
+                return new Text("[" + input + "]");
+            }
+        };
+        StringBuilder out = new StringBuilder();
+        Assert.assertFalse(formatter.processTo("something", createContext(Locale.GERMANY), Arguments.NONE, out));
+        Assert.assertEquals("", out.toString());
+
+        StringBuilderDirigent dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(formatter);
+        Assert.assertEquals("a [b]", dirigent.compose("a {string}", "b"));
+    }
+
+    @Test
+    public void testProcessToWithOverriddenConversion()
+    {
+        StringFormatter formatter = new StringFormatter()
+        {
+            @Override
+            protected String parseObjectToString(Object object, Locale locale, Arguments args)
+            {
+                return "[" + object + "]";
+            }
+        };
+        StringBuilder out = new StringBuilder();
+        Assert.assertTrue(formatter.processTo(42, createContext(Locale.GERMANY), Arguments.NONE, out));
+        Assert.assertEquals("[42]", out.toString());
+    }
+
     private void checkFormat(final String expected, final Object object, final Locale locale, final String flag)
     {
         final Arguments arguments;
@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.formatter;
+
+import org.cubeengine.dirigent.context.Arguments;
+import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.component.Component;
+import org.cubeengine.dirigent.parser.component.ComponentGroup;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link WrappingPostProcessor}.
+ */
+public class WrappingPostProcessorTest
+{
+    @Test
+    public void testProcess()
+    {
+        WrappingPostProcessor processor = new WrappingPostProcessor("<", ">");
+        Component wrapped = processor.process(Text.create("text"), Contexts.EMPTY, Arguments.NONE);
+
+        Assert.assertEquals(new ComponentGroup(Text.create("<"), Text.create("text"), Text.create(">")), wrapped);
+    }
+
+    @Test
+    public void testProcessFlattensNestedGroups()
+    {
+        WrappingPostProcessor inner = new WrappingPostProcessor("<", ">");
+        WrappingPostProcessor outer = new WrappingPostProcessor(Text.EMPTY, Text.create("!"));
+        Component wrapped = outer.process(inner.process(Text.create("text"), Contexts.EMPTY, Arguments.NONE),
+                                          Contexts.EMPTY, Arguments.NONE);
+
+        Assert.assertEquals(
+            new ComponentGroup(Text.create("<"), Text.create("text"), Text.create(">"), Text.create("!")), wrapped);
+    }
+}
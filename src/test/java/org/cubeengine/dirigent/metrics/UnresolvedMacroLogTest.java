@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.metrics;
+
+import java.util.Iterator;
+import java.util.Map;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.parser.MacroResolutionState;
+import org.cubeengine.dirigent.parser.Template;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UnresolvedMacroLogTest
+{
+    private StringBuilderDirigent dirigent;
+
+    @Before
+    public void setUp()
+    {
+        dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new NumberFormatter());
+    }
+
+    @Test
+    public void testOccurrencesAreDeduplicated()
+    {
+        UnresolvedMacroLog log = new UnresolvedMacroLog();
+        RecordingMetrics recording = new RecordingMetrics();
+        dirigent.setUnresolvedMacroListener(log);
+        dirigent.setMetrics(recording);
+
+        Template template = dirigent.compile("{numbr} and {number}");
+        for (int i = 0; i < 3; ++i)
+        {
+            assertEquals("{{unresolved: numbr}} and {{unresolved: number}}", dirigent.compose(Contexts.EMPTY, template, 1, "one"));
+        }
+        dirigent.compose(Contexts.EMPTY, template, 1, 2);
+
+        assertEquals(7, log.getTotal());
+        assertEquals(0, log.getDropped());
+        Iterator<Map.Entry<UnresolvedMacroLog.Entry, Long>> it = log.getEntries().entrySet().iterator();
+        Map.Entry<UnresolvedMacroLog.Entry, Long> first = it.next();
+        Map.Entry<UnresolvedMacroLog.Entry, Long> second = it.next();
+        assertEquals(4L, (long)first.getValue());
+        assertEquals(new UnresolvedMacroLog.Entry("{numbr} and {number}", "numbr", MacroResolutionState.UNKNOWN_NAME,
+                                                  Integer.class), first.getKey());
+        assertEquals(3L, (long)second.getValue());
+        assertEquals(new UnresolvedMacroLog.Entry("{numbr} and {number}", "number",
+                                                  MacroResolutionState.NONE_APPLICABLE, String.class), second.getKey());
+        assertTrue(!it.hasNext());
+        assertEquals(4, recording.getMessages().getCount());
+
+        assertEquals(2, log.drain().size());
+        assertTrue(log.getEntries().isEmpty());
+        assertEquals(7, log.getTotal());
+    }
+
+    @Test
+    public void testCapacity()
+    {
+        UnresolvedMacroLog log = new UnresolvedMacroLog(1);
+        dirigent.setUnresolvedMacroListener(log);
+        assertSame(DirigentMetrics.NONE, dirigent.getMetrics());
+
+        dirigent.compose("{a}");
+        dirigent.compose("{b}");
+        dirigent.compose("{a}");
+
+        assertEquals(3, log.getTotal());
+        assertEquals(1, log.getDropped());
+        assertEquals(2L, (long)log.getEntries().values().iterator().next());
+    }
+}
@@ -28,6 +28,7 @@ import static org.cubeengine.dirigent.TestHelper.*;
 import static org.cubeengine.dirigent.parser.Parser.*;
 import static org.cubeengine.dirigent.parser.element.DefaultMacro.DEFAULT_MACRO;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class ParserTest
 {
@@ -281,4 +282,29 @@ public class ParserTest
     public void testParameterValue() {
         assertEquals("a\\:=\\}b{", escapeParameterValue("a:=}b{"));
     }
+
+    @Test
+    public void testParseStrict()
+    {
+        assertEquals(parse("a \\{b} {c:d=e} {0}"), Parser.parseStrict("a \\{b} {c:d=e} {0}"));
+        assertStrictFails("text {unclosed", 5);
+        assertStrictFails("text {", 5);
+        assertStrictFails("{} {0:name", 3);
+        assertStrictFails("{name:=value}", 0);
+        assertStrictFails("{name:value", 0);
+    }
+
+    private static void assertStrictFails(String message, int offset)
+    {
+        try
+        {
+            Parser.parseStrict(message);
+            fail("Expected a MalformedMacroException for " + message);
+        }
+        catch (MalformedMacroException e)
+        {
+            assertEquals(message, e.getSource());
+            assertEquals(offset, e.getOffset());
+        }
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.dirigent.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Date;
+import java.util.Locale;
+import org.cubeengine.dirigent.builder.StringBuilderDirigent;
+import org.cubeengine.dirigent.builder.StringMessageBuilder;
+import org.cubeengine.dirigent.context.Context;
+import org.cubeengine.dirigent.context.ContextFactory;
+import org.cubeengine.dirigent.context.Contexts;
+import org.cubeengine.dirigent.formatter.DateTimeFormatter;
+import org.cubeengine.dirigent.formatter.NumberFormatter;
+import org.cubeengine.dirigent.formatter.StaticTextFormatter;
+import org.cubeengine.dirigent.formatter.StringFormatter;
+import org.cubeengine.dirigent.parser.Parser;
+import org.cubeengine.dirigent.parser.Template;
+import org.cubeengine.dirigent.parser.Text;
+import org.cubeengine.dirigent.parser.component.ComponentGroup;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Guards the number of bytes allocated per operation of the key scenarios. The budgets are calibrated with some
+ * headroom above the measured allocations, so a failing test means a change increased the allocations noticeably. If
+ * such an increase is intended, measure again and adjust the budget.
+ *
+ * The measurement uses the allocation counter of the HotSpot {@code com.sun.management.ThreadMXBean}. The tests are
+ * skipped on JVMs without it. The budgets were calibrated on Java 8, later versions allocate differently in the JDK
+ * classes used by the formatters, so the tests are skipped on other versions as well. The CI build runs on Java 8 and
+ * sets the system property {@value #REQUIRED_PROPERTY} to {@code true}, which turns skipping into a failure, so the
+ * budgets are always enforced there.
+ */
+public class AllocationBudgetTest
+{
+    /**
+     * The number of warm up operations, so the JIT compiler had a chance to eliminate allocations.
+     */
+    private static final int WARMUP = 20000;
+    /**
+     * The number of measured operations.
+     */
+    private static final int OPERATIONS = 10000;
+    /**
+     * The number of measurements of which the lowest is taken, to ignore disturbances.
+     */
+    private static final int RUNS = 5;
+    /**
+     * The Java specification version the budgets were calibrated on.
+     */
+    private static final String CALIBRATED_VERSION = "1.8";
+    /**
+     * The system property which makes the tests fail instead of being skipped if the budgets can't be checked.
+     */
+    static final String REQUIRED_PROPERTY = "dirigent.allocationBudgets.required";
+
+    private static final String COMPLEX = "{0:string:uppercase} paid {1:number:format=#,##0.00} coins to {2:string} "
+        + "on {3:datetime:format=yyyy-MM-dd} ({text:static})";
+
+    private StringBuilderDirigent dirigent;
+    private Context context;
+
+    @Before
+    public void setUp()
+    {
+        final String version = System.getProperty("java.specification.version");
+        final boolean measurable = allocatedBytes() >= 0;
+        if (Boolean.getBoolean(REQUIRED_PROPERTY))
+        {
+            Assert.assertEquals("The budgets are calibrated on a different Java version", CALIBRATED_VERSION, version);
+            Assert.assertTrue("The JVM can't measure the allocated bytes", measurable);
+        }
+        Assume.assumeTrue(CALIBRATED_VERSION.equals(version));
+        Assume.assumeTrue(measurable);
+
+        dirigent = new StringBuilderDirigent();
+        dirigent.registerFormatter(new StringFormatter());
+        dirigent.registerFormatter(new NumberFormatter());
+        dirigent.registerFormatter(new DateTimeFormatter());
+        dirigent.registerFormatter(new StaticTextFormatter());
+        context = new ContextFactory().create(Locale.GERMANY);
+    }
+
+    @Test
+    public void testParse()
+    {
+        assertBudget("parse", 2400, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Parser.parse(COMPLEX);
+            }
+        });
+    }
+
+    @Test
+    public void testComposeShortTemplate()
+    {
+        final Template template = dirigent.compile("{} joined the game");
+        assertBudget("compose short template", 512, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                dirigent.compose(context, template, "Alice");
+            }
+        });
+    }
+
+    @Test
+    public void testComposeComplexTemplate()
+    {
+        final Template template = dirigent.compile(COMPLEX);
+        final Object[] inputs = {"Alice", 1234.5d, "Bob", new Date(0)};
+        assertBudget("compose complex template", 2048, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                dirigent.compose(context, template, inputs);
+            }
+        });
+    }
+
+    @Test
+    public void testComposeComplexTemplatePooled()
+    {
+        dirigent.setPooling(true);
+        final Template template = dirigent.compile(COMPLEX);
+        final Object[] inputs = {"Alice", 1234.5d, "Bob", new Date(0)};
+        assertBudget("compose complex template pooled", 1440, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                dirigent.compose(context, template, inputs);
+            }
+        });
+    }
+
+    @Test
+    public void testComposeMixedTemplatesPooled()
+    {
+        dirigent.setPooling(true);
+        final Template complex = dirigent.compile(COMPLEX);
+        final Template simple = dirigent.compile("{} joined the game");
+        final Object[] inputs = {"Alice", 1234.5d, "Bob", new Date(0)};
+        assertBudget("compose mixed templates pooled", 1440, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                dirigent.compose(context, complex, inputs);
+                dirigent.compose(context, simple, "Alice");
+            }
+        });
+    }
+
+    @Test
+    public void testComposeSource()
+    {
+        final Object[] inputs = {"Alice", 1234.5d, "Bob", new Date(0)};
+        assertBudget("compose source", 4800, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                dirigent.compose(context, COMPLEX, inputs);
+            }
+        });
+    }
+
+    @Test
+    public void testBuild()
+    {
+        final StringMessageBuilder messageBuilder = new StringMessageBuilder();
+        final ComponentGroup group = new ComponentGroup(Text.create("Alice"), Text.create(" paid "),
+                                                        new ComponentGroup(Text.create("["), Text.create("1.234,50"),
+                                                                           Text.create("]")), Text.create(" coins"));
+        assertBudget("build", 320, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                StringBuilder builder = messageBuilder.newBuilder();
+                messageBuilder.buildGroup(group, builder, Contexts.EMPTY);
+                messageBuilder.finalize(builder, Contexts.EMPTY);
+            }
+        });
+    }
+
+    /**
+     * Measures the bytes allocated per operation and compares them with the budget.
+     *
+     * @param scenario The name of the scenario.
+     * @param budget The maximum number of bytes per operation.
+     * @param operation The operation.
+     */
+    private static void assertBudget(String scenario, long budget, Runnable operation)
+    {
+        for (int i = 0; i < WARMUP; ++i)
+        {
+            operation.run();
+        }
+
+        long lowest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; ++run)
+        {
+            long start = allocatedBytes();
+            for (int i = 0; i < OPERATIONS; ++i)
+            {
+                operation.run();
+            }
+            lowest = Math.min(lowest, (allocatedBytes() - start) / OPERATIONS);
+        }
+
+        Assert.assertTrue("The " + scenario + " scenario allocates " + lowest + " bytes per operation, the budget is "
+                              + budget + " bytes", lowest <= budget);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread.
+     *
+     * @return the allocated bytes or -1 if the JVM doesn't support measuring it.
+     */
+    private static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean hotSpotBean = (com.sun.management.ThreadMXBean)bean;
+            if (hotSpotBean.isThreadAllocatedMemorySupported() && hotSpotBean.isThreadAllocatedMemoryEnabled())
+            {
+                return hotSpotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}